@@ -0,0 +1,459 @@
+package com.nickbarban;
+
+/*
+ * Copyright 2001-2005 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.nickbarban.model.LocalPageTree;
+import com.nickbarban.model.PageBody;
+import com.nickbarban.report.ExportMetrics;
+import com.nickbarban.report.PageOutcome;
+import com.nickbarban.rest.ConfluenceClient;
+import com.nickbarban.rest.PageValidatorStore;
+import com.nickbarban.rest.RequestHedger;
+import com.nickbarban.rest.transport.ConfluenceTransport;
+import com.nickbarban.rest.transport.TransportType;
+import com.nickbarban.service.ConfluenceService;
+import com.nickbarban.service.ErrorBudgetExhaustedException;
+import com.nickbarban.service.HierarchyReconciler;
+import com.nickbarban.service.impl.CircuitBreakerConfluenceService;
+import com.nickbarban.service.impl.ConfluenceServiceImpl;
+import com.nickbarban.utils.DocumentUtils;
+import okhttp3.HttpUrl;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Base of goals which publish generated docs to Confluence.
+ * <p>Holds the connection configuration and publishes page trees concurrently over one shared client.<\p>
+ */
+public abstract class AbstractExportMojo extends AbstractMojo {
+
+    /**
+     * Location of the resources folder.
+     *
+     * @parameter property="children"
+     */
+    @Parameter(property = "childrenDirectoryName", defaultValue = "children")
+    protected String childrenDirectoryName;
+
+    /**
+     * Name of the generated base html file.
+     *
+     * @parameter property="index.html"
+     */
+    @Parameter(property = "indexFile", defaultValue = "index.html")
+    protected String indexFileName;
+
+    /**
+     * Confluence anchestor id
+     *
+     * @required
+     */
+    @Parameter(property = "anchestorId")
+    protected String anchestorId;
+
+    /**
+     * Confluence credential username.
+     *
+     * @required
+     */
+    @Parameter(property = "userName")
+    protected String userName;
+
+    /**
+     * Confluence credential password.
+     *
+     * @required
+     */
+    @Parameter(property = "password")
+    protected String password;
+
+    /**
+     * Confluence base url port.
+     *
+     * @parameter property="8080"
+     */
+    @Parameter(property = "port", defaultValue = "8080")
+    protected Integer port;
+
+    /**
+     * Confluence base url.
+     *
+     * @required
+     */
+    @Parameter(property = "confluenceBaseUrl")
+    protected String confluenceBaseUrl;
+
+    /**
+     * Confluence base url scheme.
+     *
+     * @parameter property="http"
+     */
+    @Parameter(property = "protocol", defaultValue = "http")
+    protected String protocol;
+
+    /**
+     * Confluence base url host.
+     */
+    @Parameter(property = "host")
+    protected String host;
+
+    /**
+     * Confluence space key.
+     *
+     * @required
+     */
+    @Parameter(property = "space")
+    protected String space;
+
+    /**
+     * Maximum number of retries when page update is rejected because of version conflict.
+     */
+    @Parameter(property = "maxConflictRetries", defaultValue = "3")
+    protected int maxConflictRetries;
+
+    /**
+     * Send a duplicate GET request when the response is slower than usual.
+     */
+    @Parameter(property = "hedgeRequests", defaultValue = "false")
+    protected boolean hedgeRequests;
+
+    /**
+     * Percentile of observed GET latencies after which the duplicate request is sent.
+     */
+    @Parameter(property = "hedgePercentile", defaultValue = "95")
+    protected double hedgePercentile;
+
+    /**
+     * Maximum percentage of GET requests which may be duplicated.
+     */
+    @Parameter(property = "hedgeBudgetPercent", defaultValue = "10")
+    protected int hedgeBudgetPercent;
+
+    /**
+     * HTTP engine: OKHTTP or JDK (java.net.http.HttpClient with HTTP/2, requires Java 11). With JDK on Java
+     * older than 16, a hedged request which lost is not aborted and runs until its response arrives.
+     */
+    @Parameter(property = "transport", defaultValue = "OKHTTP")
+    protected TransportType transport;
+
+    /**
+     * Number of pages published concurrently.
+     */
+    @Parameter(property = "exportThreads", defaultValue = "4")
+    protected int exportThreads;
+
+    /**
+     * Location of the stored page validators (ETag / Last-Modified) used for conditional page fetches.
+     * <p>Conditional fetches are disabled if empty.<\p>
+     */
+    @Parameter(property = "pageValidatorsFile",
+            defaultValue = "${project.build.directory}/confluence-validators.json")
+    protected File pageValidatorsFile;
+
+    /**
+     * Percentage of failed Confluence calls among the last {@code circuitBreakerWindowSize} calls which opens the
+     * circuit breaker, negative disables it. Only transport failures, timeouts and HTTP 5xx or 429 responses count.
+     */
+    @Parameter(property = "circuitBreakerFailureRate", defaultValue = "50")
+    protected int circuitBreakerFailureRate;
+
+    /**
+     * Number of last Confluence calls the failure rate is calculated from.
+     */
+    @Parameter(property = "circuitBreakerWindowSize", defaultValue = "20")
+    protected int circuitBreakerWindowSize;
+
+    /**
+     * Number of Confluence calls failed in a row which opens the circuit breaker, negative disables it.
+     */
+    @Parameter(property = "circuitBreakerConsecutiveFailures", defaultValue = "5")
+    protected int circuitBreakerConsecutiveFailures;
+
+    /**
+     * Time in milliseconds the circuit breaker stays open before a probe call is let through.
+     */
+    @Parameter(property = "circuitBreakerOpenMillis", defaultValue = "10000")
+    protected long circuitBreakerOpenMillis;
+
+    /**
+     * Maximum number of failed pages before the export stops, negative for no limit.
+     */
+    @Parameter(property = "maxFailedPages", defaultValue = "-1")
+    protected int maxFailedPages;
+
+    /**
+     * Move existing pages to the parents they have in the generated docs.
+     * <p>Turn it on for the export after restructuring {@code children}, so pages follow the new hierarchy instead
+     * of being found at their old parents. It also moves back pages which were moved by hand in Confluence.<\p>
+     */
+    @Parameter(property = "reconcileHierarchy", defaultValue = "false")
+    protected boolean reconcileHierarchy;
+
+    /**
+     * Search existing pages among descendants of the ancestor page instead of the whole space.
+     * <p>A page moved out of the ancestor is found when its creation is rejected because the title exists, and
+     * updated where it is. With {@code reconcileHierarchy} a page missing under the ancestor is searched in the
+     * whole space right away, which costs a second search for every new page.<\p>
+     */
+    @Parameter(property = "searchUnderAncestor", defaultValue = "true")
+    protected boolean searchUnderAncestor;
+
+    protected DocumentUtils documentUtils;
+
+    private ConfluenceService confluenceClient;
+
+    private CircuitBreakerConfluenceService circuitBreaker;
+
+    private ExportMetrics metrics;
+
+    private CompletableFuture<Void> ancestorCheck;
+
+    private HttpUrl initEndpoint() {
+
+        if (StringUtils.isNotEmpty(confluenceBaseUrl)) {
+            getLog().info(String.format("Init endpoint: %s", confluenceBaseUrl));
+            return HttpUrl.parse(confluenceBaseUrl);
+        } else {
+            getLog().info(String.format("Init endpoint: scheme: %s, port: %s, host: %s, confluenceBaseUrl: %s",
+                    protocol, port, host, confluenceBaseUrl));
+            return new HttpUrl.Builder()
+                    .scheme(protocol)
+                    .host(host)
+                    .port(port).build();
+        }
+    }
+
+    public void execute() throws MojoExecutionException {
+        documentUtils = new DocumentUtils(getLog());
+        logAllProperties();
+
+        HttpUrl endpoint = initEndpoint();
+        RequestHedger hedger = hedgeRequests ? new RequestHedger(hedgePercentile, hedgeBudgetPercent, getLog()) : null;
+        metrics = new ExportMetrics();
+        PageValidatorStore validatorStore = pageValidatorsFile == null
+                ? null
+                : new PageValidatorStore(pageValidatorsFile, getLog()).load();
+        ConfluenceTransport confluenceTransport = transport.create();
+        circuitBreaker = new CircuitBreakerConfluenceService(new ConfluenceServiceImpl(
+                new ConfluenceClient(userName, password, endpoint, getLog(), confluenceTransport, hedger, metrics,
+                        validatorStore),
+                getLog(), space, maxConflictRetries, metrics, searchUnderAncestor ? anchestorId : null,
+                reconcileHierarchy),
+                circuitBreakerFailureRate, circuitBreakerWindowSize, circuitBreakerConsecutiveFailures,
+                circuitBreakerOpenMillis, maxFailedPages, getLog());
+        confluenceClient = circuitBreaker;
+
+        ancestorCheck = CompletableFuture.runAsync(() -> {
+            try {
+                confluenceClient.checkAncestor(anchestorId);
+            } catch (MojoExecutionException e) {
+                throw new CompletionException(e);
+            }
+        });
+
+        try {
+            export();
+        } finally {
+            confluenceTransport.close();
+            if (validatorStore != null) {
+                validatorStore.save();
+            }
+            if (hedger != null) {
+                hedger.logStatistics();
+            }
+            metrics.writeReport(getReportFile(), getLog());
+        }
+    }
+
+    protected abstract void export() throws MojoExecutionException;
+
+    protected abstract File getReportFile();
+
+    /**
+     * Publish page trees under the ancestor.
+     * <p>Root pages of all trees are published first, then all children, both with {@code exportThreads}
+     * concurrent requests. The ancestor check started with the export, which also opens the connection while
+     * local files are read, is awaited before the first upload. With {@code reconcileHierarchy} existing pages
+     * under another parent are moved before each level is published.<\p>
+     *
+     * @param trees - local page trees.
+     * @throws MojoExecutionException if any page could not be published.
+     */
+    protected void publish(List<LocalPageTree> trees) throws MojoExecutionException {
+        awaitAncestorCheck();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, exportThreads));
+        Map<String, Throwable> errors = new LinkedHashMap<>();
+
+        try {
+            HierarchyReconciler reconciler = null;
+            if (reconcileHierarchy) {
+                reconciler = new HierarchyReconciler(confluenceClient, executor, getLog());
+                reconciler.readRemoteTree(anchestorId);
+                awaitMoves(reconciler.reconcile(anchestorId,
+                        trees.stream().map(LocalPageTree::getTitle).collect(Collectors.toList())), errors);
+            }
+
+            Map<LocalPageTree, CompletableFuture<String>> parents = new LinkedHashMap<>();
+            for (LocalPageTree tree : trees) {
+                parents.put(tree, submit(executor, anchestorId, tree.getBody(), tree.getTitle()));
+            }
+
+            Map<LocalPageTree, String> parentIds = new LinkedHashMap<>();
+            for (Map.Entry<LocalPageTree, CompletableFuture<String>> parent : parents.entrySet()) {
+                try {
+                    parentIds.put(parent.getKey(), parent.getValue().join());
+                } catch (CompletionException e) {
+                    errors.put(parent.getKey().getTitle(), e.getCause());
+                }
+            }
+
+            if (reconciler != null) {
+                Map<String, CompletableFuture<Void>> moves = new LinkedHashMap<>();
+                for (Map.Entry<LocalPageTree, String> parent : parentIds.entrySet()) {
+                    moves.putAll(reconciler.reconcile(parent.getValue(), parent.getKey().getChildren().keySet()));
+                }
+                awaitMoves(moves, errors);
+                getLog().info(String.format("Moved %s pages", reconciler.getMovedCount()));
+            }
+
+            List<CompletableFuture<String>> children = new ArrayList<>();
+            Map<CompletableFuture<String>, String> childTitles = new LinkedHashMap<>();
+            for (Map.Entry<LocalPageTree, String> parent : parentIds.entrySet()) {
+                String parentId = parent.getValue();
+
+                for (Map.Entry<String, PageBody> child : parent.getKey().getChildren().entrySet()) {
+                    CompletableFuture<String> future = submit(executor, parentId, child.getValue(), child.getKey());
+                    children.add(future);
+                    childTitles.put(future, child.getKey());
+                }
+            }
+
+            for (CompletableFuture<String> child : children) {
+                try {
+                    child.join();
+                } catch (CompletionException e) {
+                    errors.put(childTitles.get(child), e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        getLog().info(circuitBreaker.summary());
+
+        if (!errors.isEmpty()) {
+            String messages = errors.entrySet().stream()
+                    .filter(e -> !(e.getValue() instanceof ErrorBudgetExhaustedException))
+                    .map(e -> e.getKey() + "::" + e.getValue())
+                    .collect(Collectors.joining("\r\n", "[msg-start]", "[msg-end]"));
+            if (circuitBreaker.isBudgetExhausted()) {
+                throw new MojoExecutionException(String.format("Export under ancestor %s stopped early, more than %s "
+                        + "pages failed. %s. Messages:\r\n%s", anchestorId, maxFailedPages, circuitBreaker.summary(),
+                        messages));
+            }
+            throw new MojoExecutionException(String.format("Errors while saveOrUpdate pages under ancestor %s. Messages:\r\n%s",
+                    anchestorId, messages));
+        }
+    }
+
+    private void awaitMoves(Map<String, CompletableFuture<Void>> moves, Map<String, Throwable> errors) {
+        for (Map.Entry<String, CompletableFuture<Void>> move : moves.entrySet()) {
+            try {
+                move.getValue().join();
+            } catch (CompletionException e) {
+                errors.put(move.getKey(), e.getCause());
+            }
+        }
+    }
+
+    private void awaitAncestorCheck() throws MojoExecutionException {
+        try {
+            ancestorCheck.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException(String.format("Can not check ancestor page %s", anchestorId),
+                    e.getCause());
+        }
+    }
+
+    private CompletableFuture<String> submit(ExecutorService executor, String ancestorId, PageBody body,
+                                             String title) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return saveOrUpdate(ancestorId, body, title);
+            } catch (MojoExecutionException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private String saveOrUpdate(String ancestorId, PageBody body, String title) throws MojoExecutionException {
+        metrics.startPage(title, body.getContent().getBytes(StandardCharsets.UTF_8).length);
+
+        try {
+            return confluenceClient.saveOrUpdate(ancestorId, body, title);
+        } catch (MojoExecutionException | RuntimeException e) {
+            metrics.recordOutcome(PageOutcome.FAILED);
+            throw e;
+        } finally {
+            metrics.finishPage();
+        }
+    }
+
+    protected void logAllProperties() {
+        getLog().debug(String.format("confluenceBaseUrl=%s", this.confluenceBaseUrl));
+        getLog().debug(String.format("host=%s", this.host));
+        getLog().debug(String.format("protocol=%s", this.protocol));
+        getLog().debug(String.format("port=%s", this.port));
+        getLog().debug(String.format("anchestorId=%s", this.anchestorId));
+        getLog().debug(String.format("childrenDirectoryName=%s", this.childrenDirectoryName));
+        getLog().debug(String.format("indexFileName=%s", this.indexFileName));
+        getLog().debug(String.format("password=%s", this.password));
+        getLog().debug(String.format("userName=%s", this.userName));
+        getLog().debug(String.format("space=%s", this.space));
+        getLog().debug(String.format("maxConflictRetries=%s", this.maxConflictRetries));
+        getLog().debug(String.format("hedgeRequests=%s", this.hedgeRequests));
+        getLog().debug(String.format("hedgePercentile=%s", this.hedgePercentile));
+        getLog().debug(String.format("hedgeBudgetPercent=%s", this.hedgeBudgetPercent));
+        getLog().debug(String.format("transport=%s", this.transport));
+        getLog().debug(String.format("exportThreads=%s", this.exportThreads));
+        getLog().debug(String.format("pageValidatorsFile=%s", this.pageValidatorsFile));
+        getLog().debug(String.format("circuitBreakerFailureRate=%s", this.circuitBreakerFailureRate));
+        getLog().debug(String.format("circuitBreakerWindowSize=%s", this.circuitBreakerWindowSize));
+        getLog().debug(String.format("circuitBreakerConsecutiveFailures=%s", this.circuitBreakerConsecutiveFailures));
+        getLog().debug(String.format("circuitBreakerOpenMillis=%s", this.circuitBreakerOpenMillis));
+        getLog().debug(String.format("maxFailedPages=%s", this.maxFailedPages));
+        getLog().debug(String.format("reconcileHierarchy=%s", this.reconcileHierarchy));
+        getLog().debug(String.format("searchUnderAncestor=%s", this.searchUnderAncestor));
+    }
+}
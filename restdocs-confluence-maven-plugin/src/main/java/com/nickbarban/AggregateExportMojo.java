@@ -0,0 +1,89 @@
+package com.nickbarban;
+
+/*
+ * Copyright 2001-2005 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.nickbarban.model.LocalPageTree;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Goal which exports restdocs files of all modules of the reactor at once.
+ * <p>An aggregator goal: it runs once per build, so all modules share one client and one page index.
+ * Every module gets a page titled by the module name.<\p>
+ * <p>Invoke it from the command line after the phase which generates the docs, e.g.
+ * {@code mvn verify restdocs-confluence:report-aggregate}. Maven then starts it only after the whole reactor,
+ * also with {@code -T}, has finished {@code verify}. When bound to a phase in a pom it runs with the
+ * project that declares it, which does not wait for the other modules.<\p>
+ */
+@Mojo(name = "report-aggregate", aggregator = true, threadSafe = true)
+public class AggregateExportMojo extends AbstractExportMojo {
+
+    @Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
+    private List<MavenProject> reactorProjects;
+
+    /**
+     * Location of the generated docs relative to the build directory of each module.
+     */
+    @Parameter(property = "generatedDocsDirectoryName", defaultValue = "generated-docs")
+    private String generatedDocsDirectoryName;
+
+    /**
+     * Location of the export performance report.
+     */
+    @Parameter(property = "reportFile",
+            defaultValue = "${session.executionRootDirectory}/target/confluence-export-report.json")
+    private File reportFile;
+
+    @Override
+    protected void export() throws MojoExecutionException {
+        List<LocalPageTree> trees = new ArrayList<>();
+
+        for (MavenProject module : reactorProjects) {
+            File docs = new File(module.getBuild().getDirectory(), generatedDocsDirectoryName);
+            File[] files = docs.listFiles();
+
+            if (files == null || files.length == 0) {
+                getLog().debug(String.format("There are no docs in %s", docs));
+            } else {
+                String title = StringUtils.defaultIfEmpty(module.getName(), module.getArtifactId());
+                trees.add(documentUtils.preparePageTree(title, indexFileName, childrenDirectoryName, docs));
+            }
+        }
+
+        getLog().info(String.format("Exporting docs of %s modules", trees.size()));
+        publish(trees);
+    }
+
+    @Override
+    protected File getReportFile() {
+        return reportFile;
+    }
+
+    @Override
+    protected void logAllProperties() {
+        super.logAllProperties();
+        getLog().debug(String.format("generatedDocsDirectoryName=%s", this.generatedDocsDirectoryName));
+        getLog().debug(String.format("reportFile=%s", this.reportFile));
+    }
+}
@@ -41,10 +41,20 @@ public class CleanMojo extends AbstractMojo {
     @Parameter(property = "outputDirectory", defaultValue = "${project.build.directory}/confluence")
     private File outputDirectory;
 
+    /**
+     * Rename output folder and delete it in background instead of deleting it file by file.
+     */
+    @Parameter(property = "fastClean", defaultValue = "false")
+    private boolean fastClean;
+
     private DocumentUtils documentUtils = new DocumentUtils(getLog());
 
     public void execute() throws MojoExecutionException {
-        documentUtils.clean(outputDirectory);
+        if (fastClean) {
+            documentUtils.cleanInBackground(outputDirectory);
+        } else {
+            documentUtils.clean(outputDirectory);
+        }
     }
 
 
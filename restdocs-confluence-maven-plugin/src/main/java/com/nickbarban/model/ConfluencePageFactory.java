@@ -15,6 +15,37 @@ public class ConfluencePageFactory {
         return page;
     }
 
+    /**
+     * Create page known to be at the given version, for updating it without fetching its body.
+     */
+    public static ConfluencePage createExistingStoragePage(String id, String title, String space, int versionNumber) {
+        ConfluencePage page = new ConfluencePage();
+        page.setId(id);
+        page.setType(ConfluencePage.PAGE);
+        page.setTitle(title);
+        page.setBody(createStorageBody(null));
+        page.setSpace(createConfluenceSpace(space));
+        page.setVersion(createVersion(versionNumber));
+        return page;
+    }
+
+    /**
+     * Create page which moves an existing page under another parent, without body.
+     * <p>The version message is kept, so the page is still known to be published from the same content.<\p>
+     */
+    public static ConfluencePage createMovedPage(String id, String title, String space, String parentId,
+                                                 ConfluencePageVersion currentVersion) {
+        ConfluencePage page = new ConfluencePage();
+        page.setId(id);
+        page.setType(ConfluencePage.PAGE);
+        page.setTitle(title);
+        page.setSpace(createConfluenceSpace(space));
+        page.setAncestors(Collections.singletonList(createAncestor(parentId)));
+        page.setVersion(createVersion(currentVersion.getNumber() + 1));
+        page.getVersion().setMessage(currentVersion.getMessage());
+        return page;
+    }
+
     private static ConfluencePageVersion createVersion(int number) {
         ConfluencePageVersion version = new ConfluencePageVersion();
         version.setNumber(number);
@@ -1,11 +1,15 @@
 package com.nickbarban.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ConfluencePageVersion {
     private int number;
 
+    private String message;
+
     public int getNumber() {
         return number;
     }
@@ -14,6 +18,14 @@ public class ConfluencePageVersion {
         this.number = number;
     }
 
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
     public void increment() {
         ++this.number;
     }
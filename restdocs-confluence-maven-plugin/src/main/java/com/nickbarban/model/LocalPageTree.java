@@ -0,0 +1,36 @@
+package com.nickbarban.model;
+
+import java.util.Map;
+
+/**
+ * Generated docs of one project: root page and its children, prepared for publishing.
+ */
+public class LocalPageTree {
+
+    private final String title;
+
+    private final PageBody body;
+
+    private final Map<String, PageBody> children;
+
+    /**
+     * @param children - bodies of child pages by title.
+     */
+    public LocalPageTree(String title, PageBody body, Map<String, PageBody> children) {
+        this.title = title;
+        this.body = body;
+        this.children = children;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public PageBody getBody() {
+        return body;
+    }
+
+    public Map<String, PageBody> getChildren() {
+        return children;
+    }
+}
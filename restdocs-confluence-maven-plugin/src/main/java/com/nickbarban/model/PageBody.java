@@ -0,0 +1,37 @@
+package com.nickbarban.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Converted page body, ready to be uploaded, with the hash used for change detection.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PageBody {
+    private String content;
+
+    private String hash;
+
+    public PageBody() {
+    }
+
+    public PageBody(String content, String hash) {
+        this.content = content;
+        this.hash = hash;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+}
@@ -0,0 +1,36 @@
+package com.nickbarban.report;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Adds bytes read from the stream to the page metrics.
+ */
+class CountingInputStream extends FilterInputStream {
+
+    private final PageMetrics page;
+
+    CountingInputStream(InputStream in, PageMetrics page) {
+        super(in);
+        this.page = page;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        if (result != -1) {
+            page.addBytesRead(1);
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            page.addBytesRead(read);
+        }
+        return read;
+    }
+}
@@ -0,0 +1,111 @@
+package com.nickbarban.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects metrics of the export run and writes them as a JSON report.
+ * <p>The page being exported is bound to the current thread between {@link #startPage} and {@link #finishPage}.<\p>
+ */
+public class ExportMetrics {
+
+    private final long start = System.nanoTime();
+
+    private final List<PageMetrics> pages = new ArrayList<>();
+
+    private final Map<String, LatencyHistogram> endpoints = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<PageMetrics> currentPage = new ThreadLocal<>();
+
+    private final ThreadLocal<Long> currentPageStart = new ThreadLocal<>();
+
+    public PageMetrics startPage(String title, long sourceBytes) {
+        PageMetrics page = new PageMetrics(title, sourceBytes);
+        synchronized (pages) {
+            pages.add(page);
+        }
+        currentPage.set(page);
+        currentPageStart.set(System.nanoTime());
+        return page;
+    }
+
+    public void finishPage() {
+        PageMetrics page = currentPage.get();
+        if (page != null) {
+            page.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - currentPageStart.get()));
+        }
+        currentPage.remove();
+        currentPageStart.remove();
+    }
+
+    public void recordOutcome(PageOutcome outcome) {
+        PageMetrics page = currentPage.get();
+        if (page != null) {
+            page.setOutcome(outcome);
+        }
+    }
+
+    public void recordRetry() {
+        PageMetrics page = currentPage.get();
+        if (page != null) {
+            page.addRetry();
+        }
+    }
+
+    public void recordCall(String endpoint, long latencyMillis, long bytesUploaded) {
+        endpoints.computeIfAbsent(endpoint, e -> new LatencyHistogram()).record(latencyMillis);
+        PageMetrics page = currentPage.get();
+        if (page != null) {
+            page.addCall(latencyMillis, bytesUploaded);
+        }
+    }
+
+    /**
+     * Count bytes read from the response body to the page being exported by the current thread.
+     */
+    public InputStream countBytesRead(InputStream body) {
+        PageMetrics page = currentPage.get();
+        return page == null ? body : new CountingInputStream(body, page);
+    }
+
+    public void writeReport(File reportFile, Log log) throws MojoExecutionException {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Map<String, Object> report = new LinkedHashMap<>();
+        List<PageMetrics> pagesCopy;
+
+        synchronized (pages) {
+            pagesCopy = new ArrayList<>(pages);
+        }
+
+        report.put("durationMillis", durationMillis);
+        report.put("pages", pagesCopy.size());
+        report.put("pagesPerSecond", durationMillis == 0 ? 0 : pagesCopy.size() * 1000.0 / durationMillis);
+        report.put("endpoints", new TreeMap<>(endpoints));
+        report.put("pageMetrics", pagesCopy);
+
+        File directory = reportFile.getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+
+        try {
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing export report " + reportFile, e);
+        }
+        log.info(String.format("Export report written to %s", reportFile));
+    }
+}
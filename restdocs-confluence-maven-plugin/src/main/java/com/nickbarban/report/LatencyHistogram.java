@@ -0,0 +1,58 @@
+package com.nickbarban.report;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency histogram with fixed millisecond buckets.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKETS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, Long.MAX_VALUE};
+
+    private final long[] counts = new long[BUCKETS.length];
+
+    private long count;
+
+    private long total;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max;
+
+    public synchronized void record(long millis) {
+        int bucket = 0;
+        while (millis > BUCKETS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        count++;
+        total += millis;
+        min = Math.min(min, millis);
+        max = Math.max(max, millis);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    public synchronized Map<String, Long> getBuckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS.length; i++) {
+            result.put(BUCKETS[i] == Long.MAX_VALUE ? "+Inf" : "<=" + BUCKETS[i], counts[i]);
+        }
+        return result;
+    }
+}
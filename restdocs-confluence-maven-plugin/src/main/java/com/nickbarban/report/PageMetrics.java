@@ -0,0 +1,92 @@
+package com.nickbarban.report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of a single exported page.
+ */
+public class PageMetrics {
+
+    private final String title;
+
+    private final long sourceBytes;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final AtomicLong bytesUploaded = new AtomicLong();
+
+    private final AtomicInteger retries = new AtomicInteger();
+
+    private final List<Long> callLatencies = new ArrayList<>();
+
+    private volatile PageOutcome outcome;
+
+    private volatile long durationMillis;
+
+    public PageMetrics(String title, long sourceBytes) {
+        this.title = title;
+        this.sourceBytes = sourceBytes;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getBytesUploaded() {
+        return bytesUploaded.get();
+    }
+
+    public synchronized int getHttpCalls() {
+        return callLatencies.size();
+    }
+
+    public synchronized List<Long> getCallLatencies() {
+        return new ArrayList<>(callLatencies);
+    }
+
+    public int getRetries() {
+        return retries.get();
+    }
+
+    public PageOutcome getOutcome() {
+        return outcome;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    void setOutcome(PageOutcome outcome) {
+        this.outcome = outcome;
+    }
+
+    void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    void addBytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    void addCall(long latencyMillis, long uploaded) {
+        synchronized (this) {
+            callLatencies.add(latencyMillis);
+        }
+        bytesUploaded.addAndGet(uploaded);
+    }
+
+    void addRetry() {
+        retries.incrementAndGet();
+    }
+}
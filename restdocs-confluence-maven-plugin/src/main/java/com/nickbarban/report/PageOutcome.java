@@ -0,0 +1,8 @@
+package com.nickbarban.report;
+
+public enum PageOutcome {
+    CREATED,
+    UPDATED,
+    SKIPPED,
+    FAILED
+}
@@ -2,60 +2,129 @@ package com.nickbarban.rest;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nickbarban.model.ConfluencePage;
+import com.nickbarban.model.ConfluencePageVersion;
+import com.nickbarban.model.PageValidators;
+import com.nickbarban.report.ExportMetrics;
+import com.nickbarban.rest.transport.ConfluenceTransport;
+import com.nickbarban.rest.transport.TransportRequest;
+import com.nickbarban.rest.transport.TransportResponse;
+import com.nickbarban.utils.HashUtils;
 import okhttp3.Credentials;
 import okhttp3.HttpUrl;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class ConfluenceClient {
+    private static final int HTTP_CONFLICT = 409;
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private static final String APPLICATION_JSON = "application/json";
+
+    private static final int CHILDREN_PAGE_SIZE = 100;
+
+    private static final int SEARCH_PAGE_SIZE = 25;
+
     private ObjectMapper objectMapper = new ObjectMapper();
 
-    private final OkHttpClient.Builder client;
+    private final ConfluenceTransport transport;
 
-    private final String credentials;
+    private final Map<String, String> headers;
 
     private final Log log;
 
     private final HttpUrl endpoint;
 
-    public ConfluenceClient(String userName, String password, HttpUrl endpoint, Log log) {
+    private final RequestHedger hedger;
+
+    private final ExportMetrics metrics;
+
+    private final PageValidatorStore validatorStore;
+
+    /**
+     * @param transport      - HTTP engine.
+     * @param hedger         - hedger for GET requests, null disables hedging.
+     * @param metrics        - export metrics.
+     * @param validatorStore - validators for conditional page fetches, null disables them.
+     */
+    public ConfluenceClient(String userName, String password, HttpUrl endpoint, Log log, ConfluenceTransport transport,
+                            RequestHedger hedger, ExportMetrics metrics, PageValidatorStore validatorStore) {
         this.log = log;
-        this.credentials = Credentials.basic(userName, password);
-        client = new OkHttpClient.Builder()
-                .authenticator((route, response) -> response.request().newBuilder()
-                        .header("Authorization", this.credentials).build());
+        this.headers = Collections.singletonMap("Authorization", Credentials.basic(userName, password));
+        this.transport = transport;
         this.endpoint = endpoint;
+        this.hedger = hedger;
+        this.metrics = metrics;
+        this.validatorStore = validatorStore;
         objectMapper.configure(DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY, true);
         objectMapper.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, true);
     }
 
     public ConfluencePage getPage(String id) throws MojoExecutionException {
+        return fetchPage(id, null);
+    }
+
+    /**
+     * Fetch page unless it is unchanged since a previous fetch.
+     * <p>Validators stored for the page are sent as If-None-Match / If-Modified-Since, validators of a fetched
+     * page are stored for the next run.<\p>
+     *
+     * @param id - page id.
+     * @return page, or null if the server answered 304 Not Modified, see {@link #getKnownValidators(String)}.
+     * @throws MojoExecutionException
+     */
+    public ConfluencePage getPageIfModified(String id) throws MojoExecutionException {
+        return fetchPage(id, validatorStore == null ? null : validatorStore.get(id));
+    }
+
+    /**
+     * @return validators of the page version returned by the last successful fetch, or null.
+     */
+    public PageValidators getKnownValidators(String id) {
+        return validatorStore == null ? null : validatorStore.get(id);
+    }
+
+    private ConfluencePage fetchPage(String id, PageValidators known) throws MojoExecutionException {
         HttpUrl url = endpoint.newBuilder()
                 .addPathSegment("content")
                 .addPathSegment(id)
                 .addQueryParameter("expand", "body.storage,version")
                 .build();
-        Response response = getRequest(url);
+        Map<String, String> requestHeaders = new HashMap<>(headers);
+        if (known != null && known.getEtag() != null) {
+            requestHeaders.put("If-None-Match", known.getEtag());
+        }
+        if (known != null && known.getLastModified() != null) {
+            requestHeaders.put("If-Modified-Since", known.getLastModified());
+        }
+        TransportResponse response = getRequest(url, "get", requestHeaders);
 
-        if (response.isSuccessful()) {
+        if (response.getCode() == HTTP_NOT_MODIFIED && known != null) {
+            closeQuietly(response);
+            log.debug(String.format("Page %s is not modified since version %s", id, known.getVersionNumber()));
+            return null;
+        } else if (response.isSuccessful()) {
             JsonNode jsonResult;
             ConfluencePage result;
 
             try {
-                jsonResult = objectMapper.readTree((response.body().string()));
+                jsonResult = objectMapper.readTree(response.bodyString());
             } catch (IOException e) {
                 throw new MojoExecutionException(String.format("Can not read response from %s", url.toString()), e);
             }
@@ -72,48 +141,236 @@ public class ConfluenceClient {
                 throw new MojoExecutionException(String.format("Can not map response to ConfluencePage from %s", url.toString()), e);
             }
 
+            storeValidators(result, response);
             return result;
         } else {
-            throw new MojoExecutionException(prepareErrorResponseMessage(response));
+            throw new ConfluenceResponseException(prepareErrorResponseMessage(response), response.getCode());
+        }
+    }
+
+    private void storeValidators(ConfluencePage page, TransportResponse response) {
+        String etag = response.getHeader("ETag");
+        String lastModified = response.getHeader("Last-Modified");
+
+        if (validatorStore == null || page.getVersion() == null || (etag == null && lastModified == null)) {
+            return;
+        }
+        PageValidators validators = new PageValidators();
+        validators.setEtag(etag);
+        validators.setLastModified(lastModified);
+        validators.setVersionNumber(page.getVersion().getNumber());
+        validators.setContentHash(HashUtils.fromVersionMessage(page.getVersion().getMessage()));
+        validatorStore.put(page.getId(), validators);
+    }
+
+    private void closeQuietly(TransportResponse response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            // ignore
         }
     }
 
-    public ConfluencePage getPageByTitleAndSpace(String title, String space) throws MojoExecutionException {
+    /**
+     * Fetch only the latest version of the page, without body.
+     *
+     * @param id - page id.
+     * @return latest page version.
+     * @throws MojoExecutionException
+     */
+    public ConfluencePageVersion getPageVersion(String id) throws MojoExecutionException {
         HttpUrl url = endpoint.newBuilder()
                 .addPathSegment("content")
-                .addPathSegment("search")
-                .addQueryParameter("cql", String.format("title=\"%s\" and space=%s", title, space))
+                .addPathSegment(id)
+                .addQueryParameter("expand", "version")
                 .build();
-        Response response = getRequest(url);
+        TransportResponse response = getRequest(url, "version");
 
         if (response.isSuccessful()) {
-            JsonNode results;
-            ConfluencePage[] result;
+            try {
+                JsonNode version = objectMapper.readTree(response.bodyString()).get("version");
+                return objectMapper.treeToValue(version, ConfluencePageVersion.class);
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Can not read version from %s", url.toString()), e);
+            }
+        } else {
+            throw new ConfluenceResponseException(prepareErrorResponseMessage(response), response.getCode());
+        }
+    }
+
+    /**
+     * Fetch page with its space, without body.
+     *
+     * @param id - page id.
+     * @return page metadata.
+     * @throws MojoExecutionException
+     */
+    public ConfluencePage getPageMetadata(String id) throws MojoExecutionException {
+        HttpUrl url = endpoint.newBuilder()
+                .addPathSegment("content")
+                .addPathSegment(id)
+                .addQueryParameter("expand", "space")
+                .build();
+        TransportResponse response = getRequest(url, "metadata");
 
+        if (response.isSuccessful()) {
             try {
-                results = objectMapper.readTree((response.body().string())).get("results");
-                log.info(String.format("Fetched page: %s", results.toString()));
+                return objectMapper.readValue(response.bodyString(), ConfluencePage.class);
             } catch (IOException e) {
-                throw new MojoExecutionException(String.format("Can not read response from %s", url.toString()), e);
+                throw new MojoExecutionException(String.format("Can not map response to ConfluencePage from %s", url.toString()), e);
             }
+        } else {
+            throw new ConfluenceResponseException(prepareErrorResponseMessage(response), response.getCode());
+        }
+    }
 
+    /**
+     * Fetch all child pages of the page, with their versions and without bodies.
+     *
+     * @param parentId - parent page id.
+     * @return child pages.
+     * @throws MojoExecutionException
+     */
+    public List<ConfluencePage> getChildPages(String parentId) throws MojoExecutionException {
+        List<ConfluencePage> children = new ArrayList<>();
+
+        for (int start = 0; ; start += CHILDREN_PAGE_SIZE) {
+            HttpUrl url = endpoint.newBuilder()
+                    .addPathSegment("content")
+                    .addPathSegment(parentId)
+                    .addPathSegment("child")
+                    .addPathSegment("page")
+                    .addQueryParameter("expand", "version")
+                    .addQueryParameter("start", String.valueOf(start))
+                    .addQueryParameter("limit", String.valueOf(CHILDREN_PAGE_SIZE))
+                    .build();
+            TransportResponse response = getRequest(url, "children");
+
+            if (!response.isSuccessful()) {
+                throw new ConfluenceResponseException(prepareErrorResponseMessage(response), response.getCode());
+            }
+
+            ConfluencePage[] results;
             try {
-                result = objectMapper.readValue(results.toString(), ConfluencePage[].class);
-                if (result.length == 0) {
-                    log.info(String.format("There are no pages with title: %s", title));
-                    return null;
-                } else {
-                    log.info(String.format("Mapped page: %s",
-                            Stream.of(result).map(ConfluencePage::getTitle).collect(Collectors.joining(", ", "[", "]"))));
-                }
+                results = objectMapper.treeToValue(objectMapper.readTree(response.bodyString()).get("results"),
+                        ConfluencePage[].class);
             } catch (IOException e) {
-                throw new MojoExecutionException(String.format("Can not map response array to ConfluencePage[] from %s", url.toString()), e);
+                throw new MojoExecutionException(String.format("Can not read child pages from %s", url.toString()), e);
             }
 
-            return result[0];
-        } else {
-            throw new MojoExecutionException(prepareErrorResponseMessage(response));
+            children.addAll(Arrays.asList(results));
+            if (results.length < CHILDREN_PAGE_SIZE) {
+                log.debug(String.format("Page %s has %s child pages", parentId, children.size()));
+                return children;
+            }
+        }
+    }
+
+    /**
+     * Find page by its exact title.
+     * <p>Search results are requested {@code SEARCH_PAGE_SIZE} at a time following the next links. Each result
+     * page is parsed as a stream which stops at the first page with exactly the same title, the remaining results
+     * are neither read nor mapped.<\p>
+     *
+     * @param title      - page title.
+     * @param space      - space key.
+     * @param ancestorId - restrict the search to descendants of this page, null to search the whole space.
+     * @return page without body, or null.
+     * @throws MojoExecutionException
+     */
+    public ConfluencePage getPageByTitleAndSpace(String title, String space, String ancestorId)
+            throws MojoExecutionException {
+        String cql = String.format("title=\"%s\" and space=%s", escapeCql(title), space);
+        if (ancestorId != null) {
+            cql = cql + " and ancestor=" + ancestorId;
+        }
+        HttpUrl url = endpoint.newBuilder()
+                .addPathSegment("content")
+                .addPathSegment("search")
+                .addQueryParameter("cql", cql)
+                .addQueryParameter("limit", String.valueOf(SEARCH_PAGE_SIZE))
+                .build();
+
+        while (url != null) {
+            TransportResponse response = getRequest(url, "search");
+            if (!response.isSuccessful()) {
+                throw new ConfluenceResponseException(prepareErrorResponseMessage(response), response.getCode());
+            }
+
+            SearchPage searchPage;
+            try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                searchPage = readSearchPage(parser, title);
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Can not read response from %s", url.toString()), e);
+            } finally {
+                closeQuietly(response);
+            }
+
+            if (searchPage.match != null) {
+                log.info(String.format("Found page: %s", searchPage.match.getTitle()));
+                return searchPage.match;
+            }
+            url = searchPage.next == null ? null : resolveLink(searchPage.base, searchPage.next);
         }
+
+        log.info(String.format("There are no pages with title: %s", title));
+        return null;
+    }
+
+    /**
+     * Read search results up to the first page with the given title, and the next link if there is no such page.
+     */
+    private SearchPage readSearchPage(JsonParser parser, String title) throws IOException {
+        SearchPage searchPage = new SearchPage();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Search response is not an object");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if ("results".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    ConfluencePage page = objectMapper.readValue(parser, ConfluencePage.class);
+                    if (title.equals(page.getTitle())) {
+                        searchPage.match = page;
+                        return searchPage;
+                    }
+                }
+            } else if ("_links".equals(field)) {
+                JsonNode links = objectMapper.readTree(parser);
+                searchPage.next = links.hasNonNull("next") ? links.get("next").asText() : null;
+                searchPage.base = links.hasNonNull("base") ? links.get("base").asText() : null;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return searchPage;
+    }
+
+    /**
+     * Next links are relative to the base link, or to the server root if there is none.
+     */
+    private HttpUrl resolveLink(String base, String link) throws MojoExecutionException {
+        HttpUrl url = base == null ? endpoint.resolve(link) : HttpUrl.parse(base + link);
+        if (url == null) {
+            throw new MojoExecutionException(String.format("Can not resolve link %s", link));
+        }
+        return url;
+    }
+
+    private String escapeCql(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static class SearchPage {
+
+        private ConfluencePage match;
+
+        private String next;
+
+        private String base;
     }
 
     public String createPage(ConfluencePage page) throws MojoExecutionException {
@@ -130,31 +387,30 @@ public class ConfluenceClient {
             throw new MojoExecutionException(String.format("Can not map json from page %s", page.getTitle()), e);
         }
 
-        RequestBody body = RequestBody.create(MediaType.parse("application/json"), json);
-        Response response = postRequest(url, body);
+        TransportResponse response = postRequest(url, json);
 
         if (response.isSuccessful()) {
             try {
-                String jsonResponse = response.body().string();
+                String jsonResponse = response.bodyString();
                 return objectMapper.readTree(jsonResponse).get("id").asText();
             } catch (Exception e) {
                 throw new MojoExecutionException(String.format("Can not read response from %s.", url.toString()), e);
             }
         } else {
-            throw new MojoExecutionException(prepareErrorResponseMessage(response));
+            throw new ConfluenceResponseException(prepareErrorResponseMessage(response), response.getCode());
         }
     }
 
-    private String prepareErrorResponseMessage(Response response) {
+    private String prepareErrorResponseMessage(TransportResponse response) {
         String responseBody;
 
         try {
-            responseBody = response.body().string();
+            responseBody = response.bodyString();
         } catch (Exception e) {
             responseBody = "body can not be read!";
         }
         return String.format("Response from %s %s is not successful. Code: %s. Response body: %s",
-                response.request().method(), response.request().url(), response.code(), responseBody);
+                response.getRequest().getMethod(), response.getRequest().getUri(), response.getCode(), responseBody);
     }
 
     public String updatePage(ConfluencePage page) throws MojoExecutionException {
@@ -170,60 +426,72 @@ public class ConfluenceClient {
         } catch (JsonProcessingException e) {
             throw new MojoExecutionException(String.format("Can not map json from page %s", page.getTitle()), e);
         }
-        RequestBody body = RequestBody.create(MediaType.parse("application/json"), json);
-        Response response = putRequest(url, body);
+        TransportResponse response = putRequest(url, json);
+
+        if (validatorStore != null) {
+            validatorStore.remove(page.getId());
+        }
 
         if (response.isSuccessful()) {
             try {
-                String jsonResponse = response.body().string();
+                String jsonResponse = response.bodyString();
                 return objectMapper.readTree(jsonResponse).get("id").asText();
             } catch (Exception e) {
                 throw new MojoExecutionException(String.format("Can not read response from %s", url.toString()), e);
             }
+        } else if (response.getCode() == HTTP_CONFLICT) {
+            throw new ConfluenceConflictException(prepareErrorResponseMessage(response));
         } else {
-            throw new MojoExecutionException(prepareErrorResponseMessage(response));
+            throw new ConfluenceResponseException(prepareErrorResponseMessage(response), response.getCode());
         }
     }
 
-    private Response putRequest(HttpUrl url, RequestBody body) throws MojoExecutionException {
-        Request request = new Request.Builder()
-                .header("Authorization", credentials)
-                .url(url)
-                .put(body)
-                .build();
+    private TransportResponse putRequest(HttpUrl url, String json) throws MojoExecutionException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        TransportRequest request = TransportRequest.withBody("PUT", url.uri(), headers, APPLICATION_JSON,
+                body.length, () -> new ByteArrayInputStream(body));
 
         try {
-            return client.build().newCall(request).execute();
+            return execute(request, "update", false);
         } catch (IOException e) {
-            throw new MojoExecutionException(String.format("Can not perform PUT request to %s", url.toString()), e);
+            throw new ConfluenceTransportException(String.format("Can not perform PUT request to %s", url.toString()), e);
         }
     }
 
-    private Response getRequest(HttpUrl url) throws MojoExecutionException {
-        Request request = new Request.Builder()
-                .header("Authorization", credentials)
-                .url(url)
-                .get()
-                .build();
+    private TransportResponse getRequest(HttpUrl url, String endpointType) throws MojoExecutionException {
+        return getRequest(url, endpointType, headers);
+    }
+
+    private TransportResponse getRequest(HttpUrl url, String endpointType, Map<String, String> requestHeaders)
+            throws MojoExecutionException {
+        TransportRequest request = TransportRequest.get(url.uri(), requestHeaders);
 
         try {
-            return client.build().newCall(request).execute();
+            return execute(request, endpointType, hedger != null);
         } catch (IOException e) {
-            throw new MojoExecutionException(String.format("Can not perform GET request to %s", url.toString()), e);
+            throw new ConfluenceTransportException(String.format("Can not perform GET request to %s", url.toString()), e);
         }
     }
 
-    private Response postRequest(HttpUrl url, RequestBody body) throws MojoExecutionException {
-        Request request = new Request.Builder()
-                .header("Authorization", credentials)
-                .url(url)
-                .post(body)
-                .build();
+    private TransportResponse postRequest(HttpUrl url, String json) throws MojoExecutionException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        TransportRequest request = TransportRequest.withBody("POST", url.uri(), headers, APPLICATION_JSON,
+                body.length, () -> new ByteArrayInputStream(body));
 
         try {
-            return client.build().newCall(request).execute();
+            return execute(request, "create", false);
         } catch (IOException e) {
-            throw new MojoExecutionException(String.format("Can not perform POST request to %s", url.toString()), e);
+            throw new ConfluenceTransportException(String.format("Can not perform POST request to %s", url.toString()), e);
         }
     }
+
+    private TransportResponse execute(TransportRequest request, String endpointType, boolean hedged)
+            throws IOException {
+        long start = System.nanoTime();
+        TransportResponse response = hedged ? hedger.execute(transport, request) : transport.execute(request);
+        metrics.recordCall(endpointType, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                Math.max(0, request.getContentLength()));
+        return new TransportResponse(request, response.getCode(), metrics.countBytesRead(response.getBody()),
+                response.getHeaders());
+    }
 }
@@ -0,0 +1,11 @@
+package com.nickbarban.rest;
+
+/**
+ * Thrown when Confluence rejects page update because of stale version number (HTTP 409).
+ */
+public class ConfluenceConflictException extends ConfluenceResponseException {
+
+    public ConfluenceConflictException(String message) {
+        super(message, 409);
+    }
+}
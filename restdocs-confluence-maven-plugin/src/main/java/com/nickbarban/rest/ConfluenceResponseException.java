@@ -0,0 +1,20 @@
+package com.nickbarban.rest;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Thrown when Confluence responds with a not successful HTTP status.
+ */
+public class ConfluenceResponseException extends MojoExecutionException {
+
+    private final int code;
+
+    public ConfluenceResponseException(String message, int code) {
+        super(message);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
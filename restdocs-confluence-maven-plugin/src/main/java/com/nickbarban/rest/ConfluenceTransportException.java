@@ -0,0 +1,15 @@
+package com.nickbarban.rest;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request can not be sent to Confluence or its response is not received, including timeouts.
+ */
+public class ConfluenceTransportException extends MojoExecutionException {
+
+    public ConfluenceTransportException(String message, IOException cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,74 @@
+package com.nickbarban.rest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nickbarban.model.PageValidators;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Validators of fetched pages by page id, persisted between runs.
+ */
+public class PageValidatorStore {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConcurrentMap<String, PageValidators> validators = new ConcurrentHashMap<>();
+
+    private final File file;
+
+    private final Log log;
+
+    public PageValidatorStore(File file, Log log) {
+        this.file = file;
+        this.log = log;
+    }
+
+    /**
+     * Load validators stored by the previous run, an unreadable file is ignored.
+     */
+    public PageValidatorStore load() {
+        if (file.isFile()) {
+            try {
+                validators.putAll(objectMapper.readValue(file, new TypeReference<Map<String, PageValidators>>() {
+                }));
+                log.debug(String.format("Loaded validators of %s pages from %s", validators.size(), file));
+            } catch (IOException e) {
+                log.warn(String.format("Can not read page validators from %s: %s", file, e.getMessage()));
+            }
+        }
+        return this;
+    }
+
+    public void save() {
+        try {
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, new TreeMap<>(validators));
+        } catch (IOException e) {
+            log.warn(String.format("Can not write page validators to %s: %s", file, e.getMessage()));
+        }
+    }
+
+    public PageValidators get(String id) {
+        return validators.get(id);
+    }
+
+    public void put(String id, PageValidators pageValidators) {
+        validators.put(id, pageValidators);
+    }
+
+    /**
+     * Forget validators of a page changed by this run, they describe a previous version.
+     */
+    public void remove(String id) {
+        validators.remove(id);
+    }
+}
@@ -0,0 +1,181 @@
+package com.nickbarban.rest;
+
+import com.nickbarban.rest.transport.ConfluenceTransport;
+import com.nickbarban.rest.transport.TransportRequest;
+import com.nickbarban.rest.transport.TransportResponse;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes idempotent requests with hedging.
+ * <p>If the response has not arrived within the configured percentile of observed latencies,
+ * a duplicate request is sent and whichever response arrives first is used. The number of duplicates
+ * is limited by the budget, a percentage of all executed requests.<\p>
+ * <p>Latencies are sampled from primary requests only. A primary cancelled because the hedge won is sampled
+ * with the time it was observed, which is less than its real latency but keeps slow responses in the
+ * percentile.<\p>
+ */
+public class RequestHedger {
+
+    private static final int MIN_SAMPLES = 20;
+
+    private static final int MAX_SAMPLES = 1000;
+
+    private final double percentile;
+
+    private final int budgetPercent;
+
+    private final Log log;
+
+    private final long[] samples = new long[MAX_SAMPLES];
+
+    private int sampleCount;
+
+    private int nextSample;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong hedges = new AtomicLong();
+
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    public RequestHedger(double percentile, int budgetPercent, Log log) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException(String.format("Hedge percentile %s is not in (0, 100]", percentile));
+        }
+        this.percentile = percentile;
+        this.budgetPercent = budgetPercent;
+        this.log = log;
+    }
+
+    public TransportResponse execute(ConfluenceTransport transport, TransportRequest request) throws IOException {
+        requests.incrementAndGet();
+        long delay = hedgeDelayMillis();
+        CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<TransportResponse>> winner = new AtomicReference<>();
+        AtomicInteger pending = new AtomicInteger(1);
+
+        CompletableFuture<TransportResponse> primary = send(transport, request, result, winner, pending, false);
+        CompletableFuture<TransportResponse> hedge = null;
+
+        try {
+            if (delay >= 0) {
+                try {
+                    return result.get(delay, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (!result.isDone() && hedgeAllowed()) {
+                        log.debug(String.format("Hedging %s %s after %s ms", request.getMethod(), request.getUri(),
+                                delay));
+                        pending.incrementAndGet();
+                        hedge = send(transport, request, result, winner, pending, true);
+                    }
+                }
+            }
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("Interrupted while waiting for %s", request.getUri()));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            cancelLoser(primary, winner.get());
+            cancelLoser(hedge, winner.get());
+        }
+    }
+
+    public void logStatistics() {
+        long hedged = hedges.get();
+        long won = hedgesWon.get();
+        log.info(String.format("Hedged %s of %s GET requests, hedges won: %s (%.1f%%)",
+                hedged, requests.get(), won, hedged == 0 ? 0.0 : won * 100.0 / hedged));
+    }
+
+    private CompletableFuture<TransportResponse> send(ConfluenceTransport transport, TransportRequest request,
+                                                      CompletableFuture<TransportResponse> result,
+                                                      AtomicReference<CompletableFuture<TransportResponse>> winner,
+                                                      AtomicInteger pending, boolean hedge) {
+        long start = System.nanoTime();
+        CompletableFuture<TransportResponse> call = transport.executeAsync(request);
+        call.whenComplete((response, e) -> {
+            if (!hedge && (response != null || call.isCancelled())) {
+                recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+
+            if (response == null) {
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                }
+                return;
+            }
+
+            // the result is failed already if the other request failed before this one was sent
+            if (winner.compareAndSet(null, call) && result.complete(response)) {
+                if (hedge) {
+                    hedgesWon.incrementAndGet();
+                }
+            } else {
+                closeQuietly(response);
+            }
+        });
+        return call;
+    }
+
+    private void cancelLoser(CompletableFuture<TransportResponse> call, CompletableFuture<TransportResponse> winner) {
+        if (call != null && call != winner) {
+            call.cancel(true);
+        }
+    }
+
+    private void closeQuietly(TransportResponse response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private boolean hedgeAllowed() {
+        while (true) {
+            long hedged = hedges.get();
+            if ((hedged + 1) * 100 > requests.get() * budgetPercent) {
+                return false;
+            }
+            if (hedges.compareAndSet(hedged, hedged + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void recordLatency(long millis) {
+        samples[nextSample] = millis;
+        nextSample = (nextSample + 1) % MAX_SAMPLES;
+        sampleCount = Math.min(sampleCount + 1, MAX_SAMPLES);
+    }
+
+    /**
+     * Hedge delay is the configured percentile of recent latencies, or -1 while there are too few samples.
+     */
+    private synchronized long hedgeDelayMillis() {
+        if (sampleCount < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sampleCount) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
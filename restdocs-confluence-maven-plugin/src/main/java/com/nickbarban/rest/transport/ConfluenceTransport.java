@@ -0,0 +1,24 @@
+package com.nickbarban.rest.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP engine used by {@link com.nickbarban.rest.ConfluenceClient}.
+ */
+public interface ConfluenceTransport extends Closeable {
+
+    /**
+     * Execute request on the calling thread.
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+
+    /**
+     * Execute request asynchronously. Cancelling the returned future cancels the request.
+     */
+    CompletableFuture<TransportResponse> executeAsync(TransportRequest request);
+
+    @Override
+    void close();
+}
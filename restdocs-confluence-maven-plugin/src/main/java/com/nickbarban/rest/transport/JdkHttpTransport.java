@@ -0,0 +1,129 @@
+package com.nickbarban.rest.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Transport based on {@code java.net.http.HttpClient}, which multiplexes concurrent requests
+ * over a single HTTP/2 connection when the server supports it.
+ * <p>Requires Java 11 or newer at runtime and is compiled separately for it, {@link TransportType} loads it
+ * reflectively.<\p>
+ * <p>Before Java 16, cancelling the future of {@link #executeAsync(TransportRequest)} does not abort the
+ * exchange. The request runs until the response headers arrive, then its body is closed.<\p>
+ */
+public class JdkHttpTransport implements ConfluenceTransport {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "confluence-jdk-http");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HttpClient client;
+
+    private final Duration requestTimeout;
+
+    /**
+     * @param requestTimeoutMillis time to wait for the response headers, fails with {@code HttpTimeoutException}
+     */
+    public JdkHttpTransport(long requestTimeoutMillis) {
+        requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(executor)
+                .build();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        try {
+            return toTransportResponse(request, client.send(toJdkRequest(request),
+                    HttpResponse.BodyHandlers.ofInputStream()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("Interrupted while waiting for %s", request.getUri()));
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+        CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<InputStream>> sent = client.sendAsync(toJdkRequest(request),
+                HttpResponse.BodyHandlers.ofInputStream());
+        sent.whenComplete((response, e) -> {
+            if (response == null) {
+                result.completeExceptionally(e);
+            } else if (!result.complete(toTransportResponse(request, response))) {
+                try {
+                    response.body().close();
+                } catch (IOException closeException) {
+                    // ignore
+                }
+            }
+        });
+        result.whenComplete((response, e) -> {
+            if (result.isCancelled()) {
+                sent.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * HttpClient is closeable only since Java 21. Before, its connections are released when it is garbage
+     * collected, only the executor threads are stopped here.
+     */
+    @Override
+    public void close() {
+        if (client instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) client).close();
+            } catch (Exception e) {
+                // ignore
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    private HttpRequest toJdkRequest(TransportRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri()).timeout(requestTimeout);
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+
+        if (request.getBody() == null) {
+            builder.method(request.getMethod(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofInputStream(request.getBody());
+            if (request.getContentLength() > 0) {
+                body = HttpRequest.BodyPublishers.fromPublisher(body, request.getContentLength());
+            }
+            builder.header("Content-Type", request.getContentType())
+                    .method(request.getMethod(), body);
+        }
+        return builder.build();
+    }
+
+    private TransportResponse toTransportResponse(TransportRequest request, HttpResponse<InputStream> response) {
+        Map<String, String> headers = new HashMap<>();
+        response.headers().map().forEach((name, values) -> {
+            if (!values.isEmpty()) {
+                headers.put(name, values.get(0));
+            }
+        });
+        return new TransportResponse(request, response.statusCode(), response.body(), headers);
+    }
+}
@@ -0,0 +1,113 @@
+package com.nickbarban.rest.transport;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport based on OkHttp.
+ */
+public class OkHttpTransport implements ConfluenceTransport {
+
+    private static final int MAX_REQUESTS_PER_HOST = 64;
+
+    private final OkHttpClient client;
+
+    public OkHttpTransport(long readTimeoutMillis) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        return toTransportResponse(request, client.newCall(toOkHttpRequest(request)).execute());
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+        CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+        Call call = client.newCall(toOkHttpRequest(request));
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (!future.complete(toTransportResponse(request, response))) {
+                    response.close();
+                }
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void close() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    private Request toOkHttpRequest(TransportRequest request) {
+        Request.Builder builder = new Request.Builder().url(HttpUrl.get(request.getUri()));
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+
+        RequestBody body = null;
+        if (request.getBody() != null) {
+            body = new RequestBody() {
+                @Override
+                public MediaType contentType() {
+                    return MediaType.parse(request.getContentType());
+                }
+
+                @Override
+                public long contentLength() {
+                    return request.getContentLength();
+                }
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    try (Source source = Okio.source(request.getBody().get())) {
+                        sink.writeAll(source);
+                    }
+                }
+            };
+        }
+        return builder.method(request.getMethod(), body).build();
+    }
+
+    private TransportResponse toTransportResponse(TransportRequest request, Response response) {
+        Map<String, String> headers = new HashMap<>();
+        for (String name : response.headers().names()) {
+            headers.put(name, response.header(name));
+        }
+        return new TransportResponse(request, response.code(), response.body().byteStream(), headers);
+    }
+}
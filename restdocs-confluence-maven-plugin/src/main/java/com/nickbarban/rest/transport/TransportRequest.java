@@ -0,0 +1,76 @@
+package com.nickbarban.rest.transport;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Engine independent HTTP request.
+ */
+public class TransportRequest {
+
+    private final String method;
+
+    private final URI uri;
+
+    private final Map<String, String> headers;
+
+    private final String contentType;
+
+    private final long contentLength;
+
+    private final Supplier<InputStream> body;
+
+    private TransportRequest(String method, URI uri, Map<String, String> headers, String contentType,
+                             long contentLength, Supplier<InputStream> body) {
+        this.method = method;
+        this.uri = uri;
+        this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.body = body;
+    }
+
+    public static TransportRequest get(URI uri, Map<String, String> headers) {
+        return new TransportRequest("GET", uri, headers, null, 0, null);
+    }
+
+    /**
+     * @param contentLength - length of the body or -1 if unknown.
+     * @param body          - supplier of the body, may be called more than once when the request is repeated.
+     */
+    public static TransportRequest withBody(String method, URI uri, Map<String, String> headers, String contentType,
+                                            long contentLength, Supplier<InputStream> body) {
+        return new TransportRequest(method, uri, headers, contentType, contentLength, body);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * @return body supplier or null for requests without body.
+     */
+    public Supplier<InputStream> getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,88 @@
+package com.nickbarban.rest.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Engine independent HTTP response with streaming body.
+ */
+public class TransportResponse implements Closeable {
+
+    private final TransportRequest request;
+
+    private final int code;
+
+    private final InputStream body;
+
+    private final Map<String, String> headers;
+
+    public TransportResponse(TransportRequest request, int code, InputStream body) {
+        this(request, code, body, Collections.emptyMap());
+    }
+
+    /**
+     * @param headers - first value of each response header.
+     */
+    public TransportResponse(TransportRequest request, int code, InputStream body, Map<String, String> headers) {
+        this.request = request;
+        this.code = code;
+        this.body = body;
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.headers.putAll(headers);
+    }
+
+    public TransportRequest getRequest() {
+        return request;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public boolean isSuccessful() {
+        return code >= 200 && code < 300;
+    }
+
+    /**
+     * @return first value of the header, case insensitive, or null.
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Read whole body as UTF-8 string and close the response.
+     */
+    public String bodyString() throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
@@ -0,0 +1,52 @@
+package com.nickbarban.rest.transport;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Available HTTP engines.
+ */
+public enum TransportType {
+    OKHTTP,
+    JDK;
+
+    /**
+     * Read timeout of OkHttp's default client. Both engines fail a stalled request after it.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+    private static final String JDK_TRANSPORT = "com.nickbarban.rest.transport.JdkHttpTransport";
+
+    public ConfluenceTransport create() throws MojoExecutionException {
+        return create(DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param timeoutMillis time after which a request without response fails with a timeout
+     */
+    public ConfluenceTransport create(long timeoutMillis) throws MojoExecutionException {
+        switch (this) {
+            case JDK:
+                return createJdkTransport(timeoutMillis);
+            default:
+                return new OkHttpTransport(timeoutMillis);
+        }
+    }
+
+    /**
+     * JdkHttpTransport is compiled for Java 11 and must not be linked while running on Java 8.
+     */
+    private static ConfluenceTransport createJdkTransport(long timeoutMillis) throws MojoExecutionException {
+        try {
+            Class.forName("java.net.http.HttpClient");
+        } catch (ClassNotFoundException e) {
+            throw new MojoExecutionException("Transport JDK requires Java 11 or newer");
+        }
+
+        try {
+            return (ConfluenceTransport) Class.forName(JDK_TRANSPORT).getConstructor(long.class)
+                    .newInstance(timeoutMillis);
+        } catch (ReflectiveOperationException e) {
+            throw new MojoExecutionException(String.format("Can not create %s", JDK_TRANSPORT), e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.nickbarban.service;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Thrown instead of calling Confluence while the circuit breaker is open.
+ */
+public class CircuitOpenException extends MojoExecutionException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -1,7 +1,39 @@
 package com.nickbarban.service;
 
+import com.nickbarban.model.ConfluencePage;
+import com.nickbarban.model.PageBody;
 import org.apache.maven.plugin.MojoExecutionException;
 
+import java.util.List;
+
 public interface ConfluenceService {
-    String saveOrUpdate(String anchestorId, String content, String title) throws MojoExecutionException;
+
+    /**
+     * Check that the ancestor page exists in the configured space.
+     * <p>Being the first request of the export it also establishes the connection.<\p>
+     *
+     * @param anchestorId - ancestor page id.
+     * @throws MojoExecutionException if the ancestor is not available.
+     */
+    void checkAncestor(String anchestorId) throws MojoExecutionException;
+
+    String saveOrUpdate(String anchestorId, PageBody body, String title) throws MojoExecutionException;
+
+    /**
+     * Fetch child pages with their versions, without bodies.
+     *
+     * @param parentId - parent page id.
+     * @throws MojoExecutionException
+     */
+    List<ConfluencePage> getChildPages(String parentId) throws MojoExecutionException;
+
+    /**
+     * Move page under another parent.
+     * <p>Only metadata is sent, the page body is not uploaded again.<\p>
+     *
+     * @param page     - page with its current version.
+     * @param parentId - id of the new parent page.
+     * @throws MojoExecutionException
+     */
+    void movePage(ConfluencePage page, String parentId) throws MojoExecutionException;
 }
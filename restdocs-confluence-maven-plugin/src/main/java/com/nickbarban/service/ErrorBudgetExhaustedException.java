@@ -0,0 +1,13 @@
+package com.nickbarban.service;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Thrown for pages not attempted because the export already failed more pages than allowed.
+ */
+public class ErrorBudgetExhaustedException extends MojoExecutionException {
+
+    public ErrorBudgetExhaustedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,126 @@
+package com.nickbarban.service;
+
+import com.nickbarban.model.ConfluencePage;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves remote pages to the parents they have in the local page tree.
+ * <p>Pages are identified by title. The remote subtree under the ancestor is read once, two levels deep like the
+ * local page trees, and only pages whose remote parent differs from the local one are moved. Children of moved
+ * pages move with them. Moves carry only metadata and are sent concurrently.<\p>
+ */
+public class HierarchyReconciler {
+
+    private static final int TREE_DEPTH = 2;
+
+    private final ConfluenceService confluenceService;
+
+    private final ExecutorService executor;
+
+    private final Log log;
+
+    private final Map<String, ConfluencePage> remotePages = new ConcurrentHashMap<>();
+
+    private final Map<String, String> remoteParents = new ConcurrentHashMap<>();
+
+    private final AtomicInteger moved = new AtomicInteger();
+
+    public HierarchyReconciler(ConfluenceService confluenceService, ExecutorService executor, Log log) {
+        this.confluenceService = confluenceService;
+        this.executor = executor;
+        this.log = log;
+    }
+
+    /**
+     * Read the remote subtree, the child pages of each level are fetched concurrently.
+     *
+     * @param ancestorId - ancestor page id.
+     * @throws MojoExecutionException
+     */
+    public void readRemoteTree(String ancestorId) throws MojoExecutionException {
+        List<String> level = new ArrayList<>();
+        level.add(ancestorId);
+
+        for (int depth = 0; depth < TREE_DEPTH && !level.isEmpty(); depth++) {
+            List<CompletableFuture<List<String>>> children = new ArrayList<>();
+            for (String parentId : level) {
+                children.add(CompletableFuture.supplyAsync(() -> readChildren(parentId), executor));
+            }
+
+            level = new ArrayList<>();
+            for (CompletableFuture<List<String>> future : children) {
+                try {
+                    level.addAll(future.join());
+                } catch (CompletionException e) {
+                    throw new MojoExecutionException(String.format("Can not read pages under ancestor %s",
+                            ancestorId), e.getCause());
+                }
+            }
+        }
+        log.debug(String.format("There are %s remote pages under ancestor %s", remotePages.size(), ancestorId));
+    }
+
+    /**
+     * Move remote pages with the given titles which are under another parent.
+     *
+     * @param parentId - id of the local parent.
+     * @param titles   - titles of the local children.
+     * @return moves by page title, completed exceptionally if the page could not be moved.
+     */
+    public Map<String, CompletableFuture<Void>> reconcile(String parentId, Collection<String> titles) {
+        Map<String, CompletableFuture<Void>> moves = new ConcurrentHashMap<>();
+
+        for (String title : titles) {
+            ConfluencePage page = remotePages.get(title);
+            String remoteParentId = remoteParents.get(title);
+
+            if (page != null && !parentId.equals(remoteParentId)) {
+                log.info(String.format("Page %s will be moved from %s to %s", title, remoteParentId, parentId));
+                moves.put(title, CompletableFuture.runAsync(() -> move(page, parentId), executor));
+            }
+        }
+        return moves;
+    }
+
+    public int getMovedCount() {
+        return moved.get();
+    }
+
+    private List<String> readChildren(String parentId) {
+        List<ConfluencePage> children;
+        try {
+            children = confluenceService.getChildPages(parentId);
+        } catch (MojoExecutionException e) {
+            throw new CompletionException(e);
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (ConfluencePage child : children) {
+            remotePages.put(child.getTitle(), child);
+            remoteParents.put(child.getTitle(), parentId);
+            ids.add(child.getId());
+        }
+        return ids;
+    }
+
+    private void move(ConfluencePage page, String parentId) {
+        try {
+            confluenceService.movePage(page, parentId);
+        } catch (MojoExecutionException e) {
+            throw new CompletionException(e);
+        }
+        remoteParents.put(page.getTitle(), parentId);
+        moved.incrementAndGet();
+    }
+}
@@ -0,0 +1,271 @@
+package com.nickbarban.service.impl;
+
+import com.nickbarban.model.ConfluencePage;
+import com.nickbarban.model.PageBody;
+import com.nickbarban.rest.ConfluenceResponseException;
+import com.nickbarban.rest.ConfluenceTransportException;
+import com.nickbarban.service.CircuitOpenException;
+import com.nickbarban.service.ConfluenceService;
+import com.nickbarban.service.ErrorBudgetExhaustedException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker and error budget around {@link ConfluenceService}.
+ * <p>The breaker opens after {@code consecutiveFailures} failed calls in a row, or when {@code failureRate}
+ * percent of the last {@code windowSize} calls failed. While open, calls fail fast without calling Confluence.
+ * After {@code openMillis} a single call is let through as a probe, its success closes the breaker and its
+ * failure opens it again.<\p>
+ * <p>Every call to Confluence goes through the breaker, including page moves and child page reads of hierarchy
+ * reconciliation. Only transport failures, timeouts and HTTP 5xx or 429 responses count as failures, client
+ * errors like an already existing title or an unresolved version conflict mean Confluence is healthy.<\p>
+ * <p>Pages which failed or were rejected count against the error budget. Once more than {@code maxFailedPages}
+ * pages failed, the remaining pages are not attempted. A negative threshold disables the corresponding
+ * check.<\p>
+ */
+public class CircuitBreakerConfluenceService implements ConfluenceService {
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final ConfluenceService delegate;
+
+    private final int failureRate;
+
+    private final int consecutiveFailures;
+
+    private final long openMillis;
+
+    private final int maxFailedPages;
+
+    private final Log log;
+
+    private final boolean[] window;
+
+    private State state = State.CLOSED;
+
+    private int windowCount;
+
+    private int windowNext;
+
+    private int windowFailures;
+
+    private int failuresInRow;
+
+    private long openedAt;
+
+    private String openReason;
+
+    private boolean probeInFlight;
+
+    private int succeeded;
+
+    private int failed;
+
+    private int rejected;
+
+    private int notAttempted;
+
+    private int openings;
+
+    public CircuitBreakerConfluenceService(ConfluenceService delegate, int failureRate, int windowSize,
+                                           int consecutiveFailures, long openMillis, int maxFailedPages, Log log) {
+        this.delegate = delegate;
+        this.failureRate = failureRate;
+        this.consecutiveFailures = consecutiveFailures;
+        this.openMillis = openMillis;
+        this.maxFailedPages = maxFailedPages;
+        this.log = log;
+        this.window = new boolean[Math.max(1, windowSize)];
+    }
+
+    @Override
+    public void checkAncestor(String anchestorId) throws MojoExecutionException {
+        call(String.format("Ancestor %s is not checked", anchestorId), false, () -> {
+            delegate.checkAncestor(anchestorId);
+            return null;
+        });
+    }
+
+    @Override
+    public List<ConfluencePage> getChildPages(String parentId) throws MojoExecutionException {
+        return call(String.format("Child pages of %s are not read", parentId), false,
+                () -> delegate.getChildPages(parentId));
+    }
+
+    @Override
+    public void movePage(ConfluencePage page, String parentId) throws MojoExecutionException {
+        call(String.format("Page %s is not moved", page.getTitle()), false, () -> {
+            delegate.movePage(page, parentId);
+            return null;
+        });
+    }
+
+    @Override
+    public String saveOrUpdate(String anchestorId, PageBody body, String title) throws MojoExecutionException {
+        return call(String.format("Page %s is not published", title), true,
+                () -> delegate.saveOrUpdate(anchestorId, body, title));
+    }
+
+    public synchronized boolean isBudgetExhausted() {
+        return maxFailedPages >= 0 && failed + rejected > maxFailedPages;
+    }
+
+    public synchronized String summary() {
+        return String.format("Pages published: %s, failed: %s, rejected by open circuit breaker: %s, "
+                        + "not attempted: %s. Circuit breaker opened %s times and is %s",
+                succeeded, failed, rejected, notAttempted, openings, state);
+    }
+
+    /**
+     * @param description what is not done when the call is rejected or fails
+     * @param page whether the call publishes a page and counts against the error budget
+     */
+    private <T> T call(String description, boolean page, Call<T> call) throws MojoExecutionException {
+        boolean probe = acquire(description, page);
+        T result;
+
+        try {
+            result = call.execute();
+        } catch (MojoExecutionException | RuntimeException e) {
+            if (page) {
+                countFailedPage();
+            }
+            if (isConfluenceFailure(e)) {
+                onFailure(probe, description);
+            } else {
+                onSuccess(probe);
+            }
+            throw e;
+        }
+        if (page) {
+            countSucceededPage();
+        }
+        onSuccess(probe);
+        return result;
+    }
+
+    /**
+     * Only failures of Confluence itself count, a rejected request proves Confluence responds.
+     */
+    static boolean isConfluenceFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConfluenceTransportException) {
+                return true;
+            }
+            if (cause instanceof ConfluenceResponseException) {
+                int code = ((ConfluenceResponseException) cause).getCode();
+                return code >= 500 || code == 429;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the call is a half-open probe.
+     */
+    private synchronized boolean acquire(String description, boolean page) throws MojoExecutionException {
+        if (page && isBudgetExhausted()) {
+            notAttempted++;
+            throw new ErrorBudgetExhaustedException(String.format("%s: more than %s pages failed", description,
+                    maxFailedPages));
+        }
+
+        if (state == State.OPEN && System.nanoTime() - openedAt >= TimeUnit.MILLISECONDS.toNanos(openMillis)) {
+            log.info("Circuit breaker is half-open, probing Confluence");
+            state = State.HALF_OPEN;
+        }
+
+        if (state == State.OPEN || (state == State.HALF_OPEN && probeInFlight)) {
+            if (page) {
+                rejected++;
+            }
+            throw new CircuitOpenException(String.format("%s: circuit breaker is open because %s", description,
+                    openReason));
+        }
+
+        if (state == State.HALF_OPEN) {
+            probeInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void countSucceededPage() {
+        succeeded++;
+    }
+
+    private synchronized void countFailedPage() {
+        failed++;
+    }
+
+    private synchronized void onSuccess(boolean probe) {
+        failuresInRow = 0;
+        record(false);
+
+        if (probe) {
+            log.info("Circuit breaker is closed, Confluence responded to the probe");
+            probeInFlight = false;
+            state = State.CLOSED;
+            resetWindow();
+        } else {
+            checkFailureRate();
+        }
+    }
+
+    private synchronized void onFailure(boolean probe, String description) {
+        failuresInRow++;
+        record(true);
+
+        if (probe) {
+            probeInFlight = false;
+            open(String.format("probe failed: %s", description));
+        } else if (state == State.CLOSED && consecutiveFailures > 0 && failuresInRow >= consecutiveFailures) {
+            open(String.format("%s calls failed in a row", failuresInRow));
+        } else {
+            checkFailureRate();
+        }
+    }
+
+    private void checkFailureRate() {
+        if (state == State.CLOSED && failureRate > 0 && windowCount == window.length
+                && windowFailures * 100 >= failureRate * window.length) {
+            open(String.format("%s of last %s calls failed", windowFailures, window.length));
+        }
+    }
+
+    private void open(String reason) {
+        log.warn(String.format("Circuit breaker is open for %s ms: %s", openMillis, reason));
+        state = State.OPEN;
+        openReason = reason;
+        openedAt = System.nanoTime();
+        openings++;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length && window[windowNext]) {
+            windowFailures--;
+        }
+        window[windowNext] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+        windowCount = Math.min(windowCount + 1, window.length);
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowNext = 0;
+        windowFailures = 0;
+    }
+
+    private interface Call<T> {
+
+        T execute() throws MojoExecutionException;
+    }
+}
@@ -2,53 +2,247 @@ package com.nickbarban.service.impl;
 
 import com.nickbarban.model.ConfluencePage;
 import com.nickbarban.model.ConfluencePageFactory;
+import com.nickbarban.model.ConfluencePageVersion;
+import com.nickbarban.model.PageBody;
+import com.nickbarban.model.PageValidators;
+import com.nickbarban.report.ExportMetrics;
+import com.nickbarban.report.PageOutcome;
 import com.nickbarban.rest.ConfluenceClient;
+import com.nickbarban.rest.ConfluenceConflictException;
+import com.nickbarban.rest.ConfluenceResponseException;
 import com.nickbarban.service.ConfluenceService;
-import okhttp3.HttpUrl;
+import com.nickbarban.utils.HashUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class ConfluenceServiceImpl implements ConfluenceService {
 
+    private static final int HTTP_BAD_REQUEST = 400;
+
     private final Log log;
 
-    private ConfluenceClient confluenceClient;
+    private final ConfluenceClient confluenceClient;
 
     private final String space;
 
-    public ConfluenceServiceImpl(String userName, String password, HttpUrl endpoint, Log log, String space) {
+    private final int maxConflictRetries;
+
+    private final ExportMetrics metrics;
+
+    private final String searchAncestorId;
+
+    private final boolean searchSpaceOnMiss;
+
+    private final ConcurrentMap<String, String> pageIds = new ConcurrentHashMap<>();
+
+    /**
+     * @param searchAncestorId - existing pages are searched among descendants of this page. Null to search the
+     *                         whole space.
+     * @param searchSpaceOnMiss - search the whole space as well when a page is not found under the ancestor,
+     *                          otherwise only when its creation is rejected because the title exists.
+     */
+    public ConfluenceServiceImpl(ConfluenceClient confluenceClient, Log log, String space, int maxConflictRetries,
+                                 ExportMetrics metrics, String searchAncestorId, boolean searchSpaceOnMiss) {
         this.log = log;
-        confluenceClient = new ConfluenceClient(userName, password, endpoint, log);
+        this.confluenceClient = confluenceClient;
         this.space = space;
+        this.maxConflictRetries = maxConflictRetries;
+        this.metrics = metrics;
+        this.searchAncestorId = searchAncestorId;
+        this.searchSpaceOnMiss = searchSpaceOnMiss;
+    }
+
+    @Override
+    public void checkAncestor(final String anchestorId) throws MojoExecutionException {
+        ConfluencePage ancestor = confluenceClient.getPageMetadata(anchestorId);
+        String ancestorSpace = ancestor.getSpace() == null ? null : ancestor.getSpace().getKey();
+
+        if (!StringUtils.equals(ancestorSpace, space)) {
+            throw new MojoExecutionException(String.format("Ancestor page %s is in space %s, not in space %s",
+                    anchestorId, ancestorSpace, space));
+        }
+        log.debug(String.format("Ancestor page: %s", ancestor.getTitle()));
     }
 
     @Override
-    public String saveOrUpdate(final String ancestorId, final String content, final String title) throws MojoExecutionException {
-        Optional<ConfluencePage> pageOptional = Optional.ofNullable(confluenceClient.getPageByTitleAndSpace(title, space));
-
-        if (pageOptional.isPresent()) {
-            ConfluencePage page = confluenceClient.getPage(pageOptional.get().getId());
-            if (pageContentIsChanged(page, content)) {
-                updatePageContent(page, content);
-                return confluenceClient.updatePage(page);
+    public String saveOrUpdate(final String ancestorId, final PageBody body, final String title) throws MojoExecutionException {
+        Optional<String> pageId = findPageId(title);
+        String content = body.getContent();
+        String contentHash = body.getHash();
+
+        if (pageId.isPresent()) {
+            ConfluencePage page = confluenceClient.getPageIfModified(pageId.get());
+            if (page == null) {
+                return updateUnmodifiedPage(pageId.get(), title, content, contentHash);
+            } else if (pageContentIsChanged(page, content, contentHash)) {
+                updatePageContent(page, content, contentHash);
+                return updatePage(page, contentHash);
             } else {
+                metrics.recordOutcome(PageOutcome.SKIPPED);
                 return page.getId();
             }
         } else {
-            ConfluencePage page = ConfluencePageFactory.createStoragePage(title, content, space, ancestorId);
-            return confluenceClient.createPage(page);
+            try {
+                return createPage(ancestorId, title, content, contentHash);
+            } catch (ConfluenceResponseException e) {
+                if (e.getCode() != HTTP_BAD_REQUEST || searchAncestorId == null || searchSpaceOnMiss) {
+                    throw e;
+                }
+                // the title may exist outside of the search ancestor
+                ConfluencePage existing = confluenceClient.getPageByTitleAndSpace(title, space, null);
+                if (existing == null) {
+                    throw e;
+                }
+                log.debug(String.format("Page %s is not under ancestor %s, updating it where it is", title,
+                        searchAncestorId));
+                pageIds.putIfAbsent(title, existing.getId());
+                return saveOrUpdate(ancestorId, body, title);
+            }
         }
     }
 
-    private void updatePageContent(ConfluencePage page, String content) {
+    private String createPage(String ancestorId, String title, String content, String contentHash)
+            throws MojoExecutionException {
+        ConfluencePage page = ConfluencePageFactory.createStoragePage(title, content, space, ancestorId);
+        page.getVersion().setMessage(HashUtils.toVersionMessage(contentHash));
+        String id = confluenceClient.createPage(page);
+        pageIds.put(title, id);
+        metrics.recordOutcome(PageOutcome.CREATED);
+        return id;
+    }
+
+    /**
+     * Fetch child pages, their ids are added to the page index.
+     */
+    @Override
+    public List<ConfluencePage> getChildPages(final String parentId) throws MojoExecutionException {
+        List<ConfluencePage> children = confluenceClient.getChildPages(parentId);
+        for (ConfluencePage child : children) {
+            pageIds.putIfAbsent(child.getTitle(), child.getId());
+        }
+        return children;
+    }
+
+    /**
+     * Move page and recover from version conflicts by moving the latest version.
+     */
+    @Override
+    public void movePage(final ConfluencePage page, final String parentId) throws MojoExecutionException {
+        ConfluencePageVersion version = page.getVersion();
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                confluenceClient.updatePage(ConfluencePageFactory.createMovedPage(page.getId(), page.getTitle(),
+                        space, parentId, version));
+                return;
+            } catch (ConfluenceConflictException e) {
+                if (attempt >= maxConflictRetries) {
+                    throw new MojoExecutionException(String.format("Page %s is still in conflict after %s retries",
+                            page.getTitle(), attempt), e);
+                }
+                version = confluenceClient.getPageVersion(page.getId());
+                metrics.recordRetry();
+            }
+        }
+    }
+
+    /**
+     * Update page which is unchanged since it was fetched by a previous run, without fetching its body.
+     * <p>Remote page is still at the version the stored validators describe, it is skipped if that version was
+     * published from the same content.<\p>
+     */
+    private String updateUnmodifiedPage(String id, String title, String content, String contentHash)
+            throws MojoExecutionException {
+        PageValidators known = confluenceClient.getKnownValidators(id);
+
+        if (StringUtils.equals(known.getContentHash(), contentHash)) {
+            metrics.recordOutcome(PageOutcome.SKIPPED);
+            return id;
+        }
+        ConfluencePage page = ConfluencePageFactory.createExistingStoragePage(id, title, space,
+                known.getVersionNumber());
+        updatePageContent(page, content, contentHash);
+        return updatePage(page, contentHash);
+    }
+
+    /**
+     * Find page id by title, pages found once are served from the page index.
+     * <p>Titles are unique in a space. A page missing under the search ancestor is searched in the whole space
+     * only if {@code searchSpaceOnMiss} is set, so a new page costs a single search otherwise.<\p>
+     */
+    private Optional<String> findPageId(String title) throws MojoExecutionException {
+        String id = pageIds.get(title);
+
+        if (id == null) {
+            ConfluencePage page = confluenceClient.getPageByTitleAndSpace(title, space, searchAncestorId);
+            if (page == null && searchAncestorId != null && searchSpaceOnMiss) {
+                log.debug(String.format("Page %s is not under ancestor %s, searching the whole space", title,
+                        searchAncestorId));
+                page = confluenceClient.getPageByTitleAndSpace(title, space, null);
+            }
+            if (page == null) {
+                return Optional.empty();
+            }
+            id = page.getId();
+            pageIds.putIfAbsent(title, id);
+        }
+        return Optional.of(id);
+    }
+
+    /**
+     * Update page and recover from version conflicts.
+     * <p>On conflict only the latest version is fetched. If it already carries the same content hash the page
+     * was published by a concurrent export, otherwise the update is retried on top of the latest version.<\p>
+     */
+    private String updatePage(ConfluencePage page, String contentHash) throws MojoExecutionException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                String id = confluenceClient.updatePage(page);
+                metrics.recordOutcome(PageOutcome.UPDATED);
+                return id;
+            } catch (ConfluenceConflictException e) {
+                if (attempt >= maxConflictRetries) {
+                    throw new MojoExecutionException(String.format("Page %s is still in conflict after %s retries",
+                            page.getTitle(), attempt), e);
+                }
+
+                ConfluencePageVersion latest = confluenceClient.getPageVersion(page.getId());
+
+                if (StringUtils.equals(HashUtils.fromVersionMessage(latest.getMessage()), contentHash)) {
+                    log.info(String.format("Page %s version %s already has the same content", page.getTitle(),
+                            latest.getNumber()));
+                    metrics.recordOutcome(PageOutcome.SKIPPED);
+                    return page.getId();
+                }
+
+                log.warn(String.format("Page %s version %s is in conflict with latest version %s, retrying",
+                        page.getTitle(), page.getVersion().getNumber(), latest.getNumber()));
+                page.getVersion().setNumber(latest.getNumber() + 1);
+                metrics.recordRetry();
+            }
+        }
+    }
+
+    private void updatePageContent(ConfluencePage page, String content, String contentHash) {
         page.getBody().getStorage().setValue(content);
         page.getVersion().increment();
+        page.getVersion().setMessage(HashUtils.toVersionMessage(contentHash));
     }
 
-    private boolean pageContentIsChanged(ConfluencePage page, String content) {
+    /**
+     * Page is unchanged if its latest version was published from the same content, otherwise bodies are compared.
+     */
+    private boolean pageContentIsChanged(ConfluencePage page, String content, String contentHash) {
+        if (page.getVersion() != null
+                && StringUtils.equals(HashUtils.fromVersionMessage(page.getVersion().getMessage()), contentHash)) {
+            return false;
+        }
         return !StringUtils.equals(page.getBody().getStorage().getValue(), content);
     }
 }
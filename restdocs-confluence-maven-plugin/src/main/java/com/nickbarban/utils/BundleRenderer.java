@@ -0,0 +1,254 @@
+package com.nickbarban.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders operation bundles written by Spring Auto REST Docs to Confluence storage format.
+ * <p>A bundle holds the resolved models of all snippets of an operation, so the page is rendered with a single
+ * read and no template processing. Texts are expected in the confluence template format, where they are already
+ * XML-escaped. Plain values of bundles in other formats are escaped here.<\p>
+ * <p>Example requests are rendered from the recorded request like the snippets of Spring REST Docs: curl and
+ * HTTPie command lines and the raw HTTP request.<\p>
+ */
+public class BundleRenderer {
+
+    private static final String STORAGE_FORMAT = "confluence";
+
+    private static final String CURL_REQUEST = "curl-request";
+
+    private static final String HTTPIE_REQUEST = "httpie-request";
+
+    private static final String HTTP_REQUEST = "http-request";
+
+    private static final String RESPONSE_EXAMPLE = "http-response";
+
+    private static final String HOST = "Host";
+
+    private static final List<String> NAME_HEADERS = Arrays.asList("th-path", "th-parameter", "th-header");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Log log;
+
+    public BundleRenderer(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Render bundle file to page content.
+     *
+     * @param bundleFile - bundle file of one operation.
+     * @throws MojoExecutionException
+     */
+    public String render(File bundleFile) throws MojoExecutionException {
+        log.debug(String.format("Render bundle [%s/%s]", bundleFile.getParentFile().getName(), bundleFile.getName()));
+
+        JsonNode bundle;
+        try {
+            bundle = objectMapper.readTree(bundleFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error reading bundle " + bundleFile, e);
+        }
+
+        String format = bundle.path("format").asText();
+        boolean escaped = STORAGE_FORMAT.equals(format);
+        if (!escaped) {
+            log.warn(String.format("Bundle %s is formatted as %s, descriptions are published unchanged",
+                    bundle.path("operation").asText(), format));
+        }
+
+        StringBuilder content = new StringBuilder();
+        content.append(String.format("<h2 id=\"resources-%s\">%s</h2>\n", escape(bundle.path("link").asText()),
+                text(bundle.path("title"), escaped)));
+        content.append(String.format("<p><code>%s %s</code></p>\n", escape(bundle.path("method").asText()),
+                text(bundle.path("path"), escaped)));
+        content.append(String.format("<p>%s</p>\n", bundle.path("description").asText()));
+
+        for (JsonNode section : bundle.path("sections")) {
+            content.append(String.format("<h3>%s</h3>\n", escape(section.path("header").asText())));
+            renderSection(content, bundle, section, escaped);
+            content.append('\n');
+        }
+        return content.toString();
+    }
+
+    private void renderSection(StringBuilder content, JsonNode bundle, JsonNode section, boolean escaped) {
+        String name = section.path("name").asText();
+        JsonNode model = section.path("model");
+
+        if (CURL_REQUEST.equals(name)) {
+            renderCode(content, curlCommand(bundle.path("request")));
+        } else if (HTTPIE_REQUEST.equals(name)) {
+            renderCode(content, httpieCommand(bundle.path("request")));
+        } else if (HTTP_REQUEST.equals(name)) {
+            renderCode(content, httpRequest(bundle.path("request")));
+        } else if (RESPONSE_EXAMPLE.equals(name)) {
+            JsonNode response = bundle.path("response");
+            renderCode(content, httpMessage("HTTP/1.1 " + response.path("status").asText(), response, null));
+        } else if (model.has("authorization")) {
+            content.append(String.format("<p>%s</p>", text(model.path("authorization"), escaped)));
+        } else if (model.has("content")) {
+            renderTable(content, model, escaped);
+        } else {
+            log.debug(String.format("Section %s of bundle %s has no model", name, bundle.path("operation").asText()));
+        }
+    }
+
+    private void renderTable(StringBuilder content, JsonNode model, boolean escaped) {
+        String pagination = model.path("isPageRequest").asBoolean() ? "pagination-request-confluence"
+                : model.path("isPageResponse").asBoolean() ? "pagination-response-confluence" : null;
+        if (pagination != null) {
+            content.append(String.format("<p>%s</p>\n", model.path(pagination).asText()));
+        }
+
+        if (!model.path("hasContent").asBoolean()) {
+            content.append(String.format("<p>%s</p>", escape(noContentMessage(model))));
+            return;
+        }
+
+        content.append("<table>\n<tbody>\n<tr>");
+        for (String header : Arrays.asList(nameHeader(model), "th-type", "th-optional", "th-description")) {
+            content.append(String.format("<th>%s</th>", escape(model.path(header).asText())));
+        }
+        content.append("</tr>\n");
+        for (JsonNode field : model.path("content")) {
+            content.append(String.format("<tr><td><code>%s</code></td><td>%s</td><td>%s</td><td>%s</td></tr>\n",
+                    text(field.path("path"), escaped), text(field.path("type"), escaped),
+                    text(field.path("optional"), escaped), field.path("description").asText()));
+        }
+        content.append("</tbody>\n</table>");
+    }
+
+    private void renderCode(StringBuilder content, String code) {
+        content.append("<ac:structured-macro ac:name=\"code\"><ac:plain-text-body><![CDATA[")
+                .append(code.replace("]]>", "]]]]><![CDATA[>"))
+                .append("]]></ac:plain-text-body></ac:structured-macro>");
+    }
+
+    private String curlCommand(JsonNode request) {
+        StringBuilder command = new StringBuilder("$ curl ").append(quote(request.path("uri").asText()))
+                .append(" -i");
+        String method = request.path("method").asText();
+        if (!"GET".equals(method)) {
+            command.append(" -X ").append(method);
+        }
+        for (Map.Entry<String, String> header : commandHeaders(request)) {
+            command.append(" -H ").append(quote(header.getKey() + ": " + header.getValue()));
+        }
+        String body = request.path("content").asText();
+        if (!body.isEmpty()) {
+            command.append(" -d ").append(quote(body));
+        }
+        return command.toString();
+    }
+
+    private String httpieCommand(JsonNode request) {
+        StringBuilder command = new StringBuilder("$ ");
+        String body = request.path("content").asText();
+        if (!body.isEmpty()) {
+            command.append("echo ").append(quote(body)).append(" | ");
+        }
+        command.append("http ").append(request.path("method").asText()).append(' ')
+                .append(quote(request.path("uri").asText()));
+        for (Map.Entry<String, String> header : commandHeaders(request)) {
+            command.append(' ').append(quote(header.getKey() + ":" + header.getValue()));
+        }
+        return command.toString();
+    }
+
+    private String httpRequest(JsonNode request) {
+        URI uri = URI.create(request.path("uri").asText());
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            path += "?" + uri.getRawQuery();
+        }
+        return httpMessage(String.format("%s %s HTTP/1.1", request.path("method").asText(), path), request,
+                !request.path("headers").has(HOST) && uri.getHost() != null
+                        ? uri.getHost() + (uri.getPort() == -1 ? "" : ":" + uri.getPort()) : null);
+    }
+
+    private String httpMessage(String firstLine, JsonNode message, String host) {
+        StringBuilder code = new StringBuilder(firstLine).append('\n');
+        Iterator<Map.Entry<String, JsonNode>> headers = message.path("headers").fields();
+        while (headers.hasNext()) {
+            Map.Entry<String, JsonNode> header = headers.next();
+            for (JsonNode value : header.getValue()) {
+                code.append(header.getKey()).append(": ").append(value.asText()).append('\n');
+            }
+        }
+        if (host != null) {
+            code.append(HOST).append(": ").append(host).append('\n');
+        }
+        String body = message.path("content").asText();
+        if (!body.isEmpty()) {
+            code.append('\n').append(body);
+        }
+        return code.toString();
+    }
+
+    /**
+     * Headers passed on a command line, without the ones the client sets itself.
+     */
+    private List<Map.Entry<String, String>> commandHeaders(JsonNode request) {
+        List<Map.Entry<String, String>> result = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> headers = request.path("headers").fields();
+        while (headers.hasNext()) {
+            Map.Entry<String, JsonNode> header = headers.next();
+            if (HOST.equalsIgnoreCase(header.getKey()) || "Content-Length".equalsIgnoreCase(header.getKey())) {
+                continue;
+            }
+            for (JsonNode value : header.getValue()) {
+                result.add(new AbstractMap.SimpleEntry<>(header.getKey(), value.asText()));
+            }
+        }
+        return result;
+    }
+
+    private String quote(String argument) {
+        return "'" + argument.replace("'", "'\\''") + "'";
+    }
+
+    private String nameHeader(JsonNode model) {
+        for (String header : NAME_HEADERS) {
+            if (model.has(header)) {
+                return header;
+            }
+        }
+        return NAME_HEADERS.get(0);
+    }
+
+    private String noContentMessage(JsonNode model) {
+        Iterator<String> keys = model.fieldNames();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.startsWith("no-")) {
+                return model.path(key).asText();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Value of a snippet model, which is escaped already in bundles of the confluence format.
+     */
+    private String text(JsonNode value, boolean escaped) {
+        return escaped ? value.asText() : escape(value.asText());
+    }
+
+    private String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -1,32 +1,74 @@
 package com.nickbarban.utils;
 
+import com.nickbarban.model.LocalPageTree;
+import com.nickbarban.model.PageBody;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class DocumentUtils {
 
+    private static final String TOMBSTONE_INFIX = ".deleted-";
+
+    private static final String LINE_SEPARATOR = "\n\r";
+
+    private static final String SECTION_SNIPPET = "auto-section.xhtml";
+
+    private static final String BUNDLE_FILE = "auto-bundle.json";
+
+    private static final String SNIPPET_EXTENSION = ".xhtml";
+
+    private static final Pattern INCLUDE_MARKER = Pattern.compile("<!--include:([\\w.-]+)-->");
+
+    private static final String CHILDREN_MACRO = "<ac:structured-macro ac:name=\"children\"/>";
+
+    private static final ExecutorService CLEANER = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "confluence-clean");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private final Log log;
 
+    private final BundleRenderer bundleRenderer;
+
     public DocumentUtils(Log log) {
         this.log = log;
+        this.bundleRenderer = new BundleRenderer(log);
     }
 
     /**
@@ -37,14 +79,14 @@ public class DocumentUtils {
      * @param generatedDocsDirectory - generated REST docs directory.
      * @throws MojoExecutionException
      */
-    public Map<String, String> prepareChildrenFiles(final String childrenDirectoryName,
+    public Map<String, PageBody> prepareChildrenFiles(final String childrenDirectoryName,
                                                     final File generatedDocsDirectory) throws MojoExecutionException {
 
         File childrenDirectory = Arrays.stream(generatedDocsDirectory.listFiles())
                 .filter(file -> file.getName().equalsIgnoreCase(childrenDirectoryName))
                 .findFirst().orElse(null);
 
-        Map<String, String> childrenContent = new HashMap<>();
+        Map<String, PageBody> childrenContent = new ConcurrentHashMap<>();
         if (childrenDirectory == null) {
             log.debug(String.format("There is not children directory in %s directory", generatedDocsDirectory.getName()));
         } else {
@@ -58,11 +100,11 @@ public class DocumentUtils {
                         childrenFiles.length,
                         childrenDirectory.getPath(),
                         Stream.of(childrenFiles).map(File::getName).collect(Collectors.joining(",", "[", "]"))));
-                final Map<String, Exception> errors = new HashMap<>();
-                Arrays.asList(childrenFiles)
+                final Map<String, Exception> errors = new ConcurrentHashMap<>();
+                Arrays.asList(childrenFiles).parallelStream()
                         .forEach(file -> {
                             try {
-                                childrenContent.put(file.getName(), readFile(sourceDirectory, file.getName()));
+                                childrenContent.put(file.getName(), readBody(sourceDirectory, file.getName()));
                             } catch (MojoExecutionException e) {
                                 errors.put(file.getName(), e);
                             }
@@ -88,9 +130,95 @@ public class DocumentUtils {
      * @param generatedDocsDirectory - generated REST docs directory.
      * @throws MojoExecutionException
      */
-    public String prepareParentFile(String indexFileName, File generatedDocsDirectory) throws MojoExecutionException {
+    public PageBody prepareParentFile(String indexFileName, File generatedDocsDirectory) throws MojoExecutionException {
         File sourceDirectory = prepareDirectory(generatedDocsDirectory);
-        return readFile(sourceDirectory, indexFileName);
+        return readBody(sourceDirectory, indexFileName);
+    }
+
+    /**
+     * Prepare page tree.
+     * <p>Prepare content of parent file and its children generated by Spring REST Docs<\p>
+     *
+     * @param title                  - title of the parent page.
+     * @param indexFileName          - parent file name.
+     * @param childrenDirectoryName  - children directory name.
+     * @param generatedDocsDirectory - generated REST docs directory.
+     * @throws MojoExecutionException
+     */
+    public LocalPageTree preparePageTree(String title, String indexFileName, String childrenDirectoryName,
+                                         File generatedDocsDirectory) throws MojoExecutionException {
+        PageBody body = prepareParentFile(indexFileName, generatedDocsDirectory);
+        Map<String, PageBody> children = new LinkedHashMap<>();
+        prepareChildrenFiles(childrenDirectoryName, generatedDocsDirectory)
+                .forEach((fileName, childBody) -> children.put(getPageTitle(fileName), childBody));
+        return new LocalPageTree(title, body, children);
+    }
+
+    /**
+     * Prepare page tree from Confluence storage format snippets.
+     * <p>Every operation directory with a bundle or a section snippet becomes a child page. Bundles are rendered
+     * directly, otherwise include markers of the section snippet are replaced by the snippets of the same
+     * directory. Snippets are already in storage format, so no Asciidoctor pass is needed. The parent page lists
+     * its children.<\p>
+     *
+     * @param parentTitle       - title of the parent page.
+     * @param snippetsDirectory - directory with snippets generated in the confluence template format.
+     * @throws MojoExecutionException
+     */
+    public LocalPageTree prepareSnippetPageTree(String parentTitle, File snippetsDirectory) throws MojoExecutionException {
+        List<Path> operationDirectories;
+        try (Stream<Path> files = Files.walk(snippetsDirectory.toPath())) {
+            operationDirectories = files
+                    .filter(file -> file.getFileName().toString().equals(SECTION_SNIPPET)
+                            || file.getFileName().toString().equals(BUNDLE_FILE))
+                    .map(Path::getParent)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error listing snippets in " + snippetsDirectory, e);
+        }
+        log.debug(String.format("There are %s operations in %s directory", operationDirectories.size(),
+                snippetsDirectory));
+
+        Map<String, PageBody> children = new LinkedHashMap<>();
+        for (Path operationDirectory : operationDirectories) {
+            String operation = snippetsDirectory.toPath().relativize(operationDirectory).toString();
+            String title = StringUtils.normalizeSpace(
+                    getPageTitle(operation.replace(File.separatorChar, ' ').replace('-', ' ')));
+            File bundle = operationDirectory.resolve(BUNDLE_FILE).toFile();
+            String content = bundle.exists() ? bundleRenderer.render(bundle)
+                    : assembleSnippet(operationDirectory, SECTION_SNIPPET);
+            children.put(title, new PageBody(content, HashUtils.sha256Hex(content)));
+        }
+        return new LocalPageTree(parentTitle, new PageBody(CHILDREN_MACRO, HashUtils.sha256Hex(CHILDREN_MACRO)), children);
+    }
+
+    /**
+     * Read snippet and replace its include markers by the referenced snippets, missing snippets are left out.
+     */
+    private String assembleSnippet(Path directory, String fileName) throws MojoExecutionException {
+        Path file = directory.resolve(fileName);
+        if (!Files.exists(file)) {
+            log.debug(String.format("There is no snippet %s in %s directory", fileName, directory.getFileName()));
+            return "";
+        }
+
+        String content;
+        try {
+            content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error reading file " + file, e);
+        }
+
+        Matcher matcher = INCLUDE_MARKER.matcher(content);
+        StringBuffer assembled = new StringBuffer();
+        while (matcher.find()) {
+            String included = assembleSnippet(directory, matcher.group(1) + SNIPPET_EXTENSION);
+            matcher.appendReplacement(assembled, Matcher.quoteReplacement(included));
+        }
+        matcher.appendTail(assembled);
+        return assembled.toString();
     }
 
     /**
@@ -140,6 +268,103 @@ public class DocumentUtils {
         }
     }
 
+    /**
+     * Remove directory in background.
+     * <p>Directory is atomically renamed to a tombstone, so it can be created again immediately, and the tombstone
+     * is deleted on background threads, one task per subtree. Tombstones left by previous runs, e.g. when the build
+     * ended before they were deleted, are deleted too. Falls back to {@link #clean(File)} if the file system
+     * can not rename the directory atomically.<\p>
+     *
+     * @param directory - directory to be cleaned.
+     * @return future completed when all tombstones are deleted.
+     * @throws MojoExecutionException
+     */
+    public CompletableFuture<Void> cleanInBackground(File directory) throws MojoExecutionException {
+        Path path = directory.toPath().toAbsolutePath();
+        List<CompletableFuture<Void>> deletions = new ArrayList<>();
+
+        for (Path tombstone : findTombstones(path)) {
+            log.debug(String.format("Sweep tombstone %s of previous run", tombstone.getFileName()));
+            deletions.add(deleteTombstone(tombstone));
+        }
+
+        if (Files.exists(path)) {
+            Path tombstone = path.resolveSibling(path.getFileName() + TOMBSTONE_INFIX + UUID.randomUUID());
+            try {
+                Files.move(path, tombstone, StandardCopyOption.ATOMIC_MOVE);
+                log.debug(String.format("Renamed %s to %s", path.getFileName(), tombstone.getFileName()));
+                deletions.add(deleteTombstone(tombstone));
+            } catch (AtomicMoveNotSupportedException e) {
+                log.debug(String.format("Can not rename %s atomically, deleting it in place", path.getFileName()));
+                clean(directory);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Error renaming folder " + directory.getName(), e);
+            }
+        }
+        return CompletableFuture.allOf(deletions.toArray(new CompletableFuture[0]));
+    }
+
+    private List<Path> findTombstones(Path directory) throws MojoExecutionException {
+        Path parent = directory.getParent();
+        String prefix = directory.getFileName() + TOMBSTONE_INFIX;
+
+        if (parent == null || !Files.isDirectory(parent)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> siblings = Files.list(parent)) {
+            return siblings.filter(sibling -> sibling.getFileName().toString().startsWith(prefix))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error listing folder " + parent, e);
+        }
+    }
+
+    private CompletableFuture<Void> deleteTombstone(Path tombstone) {
+        List<Path> subtrees;
+        try (Stream<Path> children = Files.list(tombstone)) {
+            subtrees = children.collect(Collectors.toList());
+        } catch (IOException e) {
+            subtrees = new ArrayList<>();
+        }
+
+        CompletableFuture<?>[] tasks = subtrees.stream()
+                .map(subtree -> CompletableFuture.runAsync(() -> deleteQuietly(subtree), CLEANER))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(tasks).thenRunAsync(() -> deleteQuietly(tombstone), CLEANER);
+    }
+
+    /**
+     * Delete tree ignoring files which are already gone, e.g. deleted by a concurrent sweep.
+     */
+    private void deleteQuietly(Path root) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.deleteIfExists(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    Files.deleteIfExists(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.deleteIfExists(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (NoSuchFileException e) {
+            // already deleted
+        } catch (IOException e) {
+            log.warn(String.format("Error deleting %s, it will be deleted by the next clean: %s", root,
+                    e.getMessage()));
+        }
+    }
+
     private void processFile(File sourceDirectory, File targetDirectory, String fileName) throws MojoExecutionException {
         String content = readFile(sourceDirectory, fileName);
         writeFile(targetDirectory, fileName, content);
@@ -151,12 +376,33 @@ public class DocumentUtils {
         File file = new File(directory, fileName);
 
         try {
-            return Files.lines(Paths.get(file.getPath())).collect(Collectors.joining("\n\r"));
+            return Files.lines(Paths.get(file.getPath())).collect(Collectors.joining(LINE_SEPARATOR));
         } catch (IOException e) {
             throw new MojoExecutionException("Error reading file " + fileName, e);
         }
     }
 
+    /**
+     * Read and convert file to page body.
+     */
+    private PageBody readBody(File directory, String fileName) throws MojoExecutionException {
+        log.debug(String.format("Read from file [%s/%s]", directory.getName(), fileName));
+
+        byte[] source;
+        try {
+            source = Files.readAllBytes(new File(directory, fileName).toPath());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error reading file " + fileName, e);
+        }
+        return convert(source);
+    }
+
+    private PageBody convert(byte[] source) {
+        String content = new BufferedReader(new StringReader(new String(source, StandardCharsets.UTF_8))).lines()
+                .collect(Collectors.joining(LINE_SEPARATOR));
+        return new PageBody(content, HashUtils.sha256Hex(content));
+    }
+
     private void writeFile(File directory, String fileName, String content) throws MojoExecutionException {
         log.debug(String.format("Write to file [%s/%s]", directory.getName(), fileName));
 
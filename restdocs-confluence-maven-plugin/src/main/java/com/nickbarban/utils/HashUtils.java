@@ -0,0 +1,74 @@
+package com.nickbarban.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class HashUtils {
+
+    /**
+     * Prefix of the version message which marks a page version published by this plugin.
+     */
+    public static final String VERSION_MESSAGE_PREFIX = "restdocs-sha256:";
+
+    private HashUtils() {
+    }
+
+    /**
+     * Calculate SHA-256 of the content.
+     *
+     * @param content - page content.
+     * @return lower case hex encoded hash.
+     */
+    public static String sha256Hex(String content) {
+        return sha256Hex(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Calculate SHA-256 of the bytes.
+     *
+     * @param content - file content.
+     * @return lower case hex encoded hash.
+     */
+    public static String sha256Hex(byte[] content) {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+
+        byte[] hash = digest.digest(content);
+        StringBuilder result = new StringBuilder(hash.length * 2);
+
+        for (byte b : hash) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Create version message which carries the content hash.
+     *
+     * @param contentHash - hash of published content.
+     * @return version message.
+     */
+    public static String toVersionMessage(String contentHash) {
+        return VERSION_MESSAGE_PREFIX + contentHash;
+    }
+
+    /**
+     * Extract content hash from version message.
+     *
+     * @param message - version message.
+     * @return content hash or null if version was not published by this plugin.
+     */
+    public static String fromVersionMessage(String message) {
+        if (message == null || !message.startsWith(VERSION_MESSAGE_PREFIX)) {
+            return null;
+        }
+        return message.substring(VERSION_MESSAGE_PREFIX.length());
+    }
+}
@@ -0,0 +1,77 @@
+package com.nickbarban;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.nickbarban.rest.transport.TransportType;
+import com.nickbarban.testsupport.ExportMojoFactory;
+import com.nickbarban.testsupport.FakeConfluenceServer;
+import com.nickbarban.testsupport.SyntheticDocs;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+public class AggregateExportMojoTest {
+
+    private static final int PAGES = 5;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeConfluenceServer server;
+
+    private String rootId;
+
+    private List<MavenProject> reactor;
+
+    @Before
+    public void setUp() throws Exception {
+        server = FakeConfluenceServer.start();
+        rootId = server.createPage(ExportMojoFactory.SPACE, "Root", null, "");
+
+        MavenProject api = module("api", "Orders API");
+        MavenProject model = module("model", null);
+        MavenProject web = module("web", "Web");
+        SyntheticDocs.generate(new File(api.getBuild().getDirectory(), "generated-docs"), PAGES);
+        reactor = Arrays.asList(api, model, web);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void exportsAllModulesAtOnce() throws Exception {
+        aggregateMojo().execute();
+        assertThat(server.getPageCount(), is(PAGES + 2));
+        assertThat(server.findPage(ExportMojoFactory.SPACE, "Orders API").get("ancestors").get(0).get("id").asText(),
+                is(rootId));
+        assertThat(server.findPage(ExportMojoFactory.SPACE, "model"), is(nullValue()));
+    }
+
+    private AggregateExportMojo aggregateMojo() {
+        AggregateExportMojo mojo = new AggregateExportMojo();
+        ExportMojoFactory.configure(mojo, server, rootId, TransportType.OKHTTP);
+        ExportMojoFactory.set(mojo, "reactorProjects", reactor);
+        ExportMojoFactory.set(mojo, "generatedDocsDirectoryName", "generated-docs");
+        ExportMojoFactory.set(mojo, "reportFile", new File(temporaryFolder.getRoot(), "report.json"));
+        return mojo;
+    }
+
+    private MavenProject module(String artifactId, String name) throws Exception {
+        MavenProject project = new MavenProject();
+        project.setArtifactId(artifactId);
+        project.setName(name);
+        project.getBuild().setDirectory(temporaryFolder.newFolder(artifactId, "target").getAbsolutePath());
+        return project;
+    }
+}
@@ -0,0 +1,80 @@
+package com.nickbarban;
+
+import com.nickbarban.rest.transport.TransportType;
+import com.nickbarban.testsupport.ExportMojoFactory;
+import com.nickbarban.testsupport.FakeConfluenceServer;
+import com.nickbarban.testsupport.SyntheticDocs;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the export against {@link FakeConfluenceServer}.
+ * <p>Not part of the regular test run, execute it with {@code mvn test -Dtest=ExportLoadHarness}.
+ * Page counts, server latency and transport can be changed with the {@code harness.pages},
+ * {@code harness.latency} and {@code harness.transport} system properties.<\p>
+ */
+public class ExportLoadHarness {
+
+    private static final String DEFAULT_PAGES = "10,100,1000,5000";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void exportSyntheticTrees() throws Exception {
+        long latency = Long.getLong("harness.latency", 0);
+        TransportType transport = TransportType.valueOf(System.getProperty("harness.transport", "OKHTTP"));
+        System.out.println(String.format("transport: %s, latency: %s ms", transport, latency));
+        System.out.println(String.format("%8s %8s %12s %12s %14s", "pages", "run", "millis", "pages/s", "peak heap MB"));
+
+        for (String pages : System.getProperty("harness.pages", DEFAULT_PAGES).split(",")) {
+            run(Integer.parseInt(pages.trim()), latency, transport);
+        }
+    }
+
+    private void run(int pages, long latency, TransportType transport) throws Exception {
+        File docs = temporaryFolder.newFolder("docs-" + pages);
+        File report = new File(temporaryFolder.getRoot(), "report-" + pages + ".json");
+        SyntheticDocs.generate(docs, pages);
+
+        try (FakeConfluenceServer server = FakeConfluenceServer.start()) {
+            server.withLatency(latency, latency / 2);
+            String rootId = server.createPage(ExportMojoFactory.SPACE, "Root", null, "");
+
+            measure(pages, "create", () -> ExportMojoFactory.create(server, rootId, docs, report, transport).execute());
+            measure(pages, "skip", () -> ExportMojoFactory.create(server, rootId, docs, report, transport).execute());
+        }
+    }
+
+    private void measure(int pages, String run, Export export) throws Exception {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+
+        long start = System.nanoTime();
+        export.run();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        System.out.println(String.format("%8d %8s %12d %12.1f %14.1f", pages, run, millis,
+                (pages + 1) * 1000.0 / Math.max(1, millis), peakHeap / 1024.0 / 1024.0));
+    }
+
+    private interface Export {
+        void run() throws Exception;
+    }
+}
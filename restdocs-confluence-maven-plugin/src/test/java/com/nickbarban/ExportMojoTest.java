@@ -0,0 +1,242 @@
+package com.nickbarban;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nickbarban.rest.transport.TransportType;
+import com.nickbarban.testsupport.ExportMojoFactory;
+import com.nickbarban.testsupport.FakeConfluenceServer;
+import com.nickbarban.testsupport.SyntheticDocs;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class ExportMojoTest {
+
+    private static final int PAGES = 10;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeConfluenceServer server;
+
+    private String rootId;
+
+    private File docs;
+
+    private File report;
+
+    @Before
+    public void setUp() throws Exception {
+        server = FakeConfluenceServer.start();
+        rootId = server.createPage(ExportMojoFactory.SPACE, "Root", null, "");
+        docs = temporaryFolder.newFolder("generated-docs");
+        report = new File(temporaryFolder.getRoot(), "report.json");
+        SyntheticDocs.generate(docs, PAGES);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void createsThenSkipsThenUpdatesPages() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        assertThat(server.getPageCount(), is(PAGES + 2));
+        assertThat(countOutcomes("CREATED"), is(PAGES + 1));
+
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        assertThat(countOutcomes("SKIPPED"), is(PAGES + 1));
+
+        SyntheticDocs.touch(docs, 3, 1);
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        assertThat(countOutcomes("UPDATED"), is(1));
+        assertThat(server.findPage(ExportMojoFactory.SPACE, "Item 00003").get("version").get("number").asInt(), is(2));
+    }
+
+    @Test
+    public void fetchesUnchangedPagesConditionally() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        assertThat(server.getRequestCount("not-modified"), is(0L));
+
+        SyntheticDocs.touch(docs, 2, 1);
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        assertThat(server.getRequestCount("not-modified"), is((long) PAGES + 1));
+        assertThat(countOutcomes("SKIPPED"), is(PAGES));
+        assertThat(countOutcomes("UPDATED"), is(1));
+        assertThat(server.findPage(ExportMojoFactory.SPACE, "Item 00002").get("version").get("number").asInt(), is(2));
+
+        String editedId = server.findPage(ExportMojoFactory.SPACE, "Item 00004").get("id").asText();
+        server.editPage(editedId, "edited by somebody else");
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        assertThat(countOutcomes("UPDATED"), is(1));
+        assertThat(server.getPage(editedId).get("version").get("number").asInt(), is(3));
+    }
+
+    @Test
+    public void exportsWithJdkTransport() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report, TransportType.JDK).execute();
+        assertThat(server.getPageCount(), is(PAGES + 2));
+
+        SyntheticDocs.touch(docs, 7, 1);
+        ExportMojoFactory.create(server, rootId, docs, report, TransportType.JDK).execute();
+        assertThat(countOutcomes("SKIPPED"), is(PAGES));
+        assertThat(countOutcomes("UPDATED"), is(1));
+    }
+
+    @Test
+    public void recoversFromVersionConflict() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        SyntheticDocs.touch(docs, 5, 1);
+        server.withConflicts(1);
+
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+
+        JsonNode page = server.findPage(ExportMojoFactory.SPACE, "Item 00005");
+        assertThat(page.get("version").get("number").asInt(), is(3));
+        assertThat(page.get("body").get("storage").get("value").asText().contains("revision 1"), is(true));
+        assertThat(countOutcomes("UPDATED"), is(1));
+        assertThat(readReport().findValues("retries").stream().mapToInt(JsonNode::asInt).sum(), equalTo(1));
+    }
+
+    @Test
+    public void stopsEarlyWhenConfluenceFails() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        for (int page = 0; page < PAGES; page++) {
+            SyntheticDocs.touch(docs, page, 1);
+        }
+        ExportMojo mojo = ExportMojoFactory.create(server, rootId, docs, report);
+        ExportMojoFactory.set(mojo, "exportThreads", 1);
+        ExportMojoFactory.set(mojo, "maxFailedPages", 3);
+        server.withErrorRate(1.0, "PUT");
+
+        try {
+            mojo.execute();
+            fail("Export must fail");
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage().contains("stopped early, more than 3 pages failed"), is(true));
+            assertThat(e.getMessage().contains("failed: 4"), is(true));
+            assertThat(e.getMessage().contains("not attempted: 6"), is(true));
+        }
+    }
+
+    @Test
+    public void movesPagesBackToLocalParent() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        JsonNode index = server.findPage(ExportMojoFactory.SPACE, "Index");
+        JsonNode item = server.findPage(ExportMojoFactory.SPACE, "Item 00003");
+        server.movePage(item.get("id").asText(), rootId);
+        long updates = server.getRequestCount("update");
+
+        ExportMojo mojo = ExportMojoFactory.create(server, rootId, docs, report);
+        ExportMojoFactory.set(mojo, "reconcileHierarchy", true);
+        mojo.execute();
+
+        JsonNode moved = server.getPage(item.get("id").asText());
+        JsonNode ancestors = moved.get("ancestors");
+        assertThat(ancestors.get(ancestors.size() - 1).get("id").asText(), is(index.get("id").asText()));
+        assertThat(moved.get("body"), is(item.get("body")));
+        assertThat(moved.get("version").get("number").asInt(), is(2));
+        assertThat(server.getPageCount(), is(PAGES + 2));
+        assertThat(server.getRequestCount("update") - updates, is(1L));
+        assertThat(countOutcomes("SKIPPED"), is(PAGES + 1));
+    }
+
+    @Test
+    public void keepsMovedPagesWithoutReconciliation() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        JsonNode item = server.findPage(ExportMojoFactory.SPACE, "Item 00003");
+        server.movePage(item.get("id").asText(), rootId);
+        long updates = server.getRequestCount("update");
+
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+
+        JsonNode ancestors = server.getPage(item.get("id").asText()).get("ancestors");
+        assertThat(ancestors.get(ancestors.size() - 1).get("id").asText(), is(rootId));
+        assertThat(server.getRequestCount("update"), is(updates));
+        assertThat(countOutcomes("SKIPPED"), is(PAGES + 1));
+    }
+
+    @Test
+    public void searchesOnceForNewPages() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+
+        assertThat(countOutcomes("CREATED"), is(PAGES + 1));
+        assertThat(server.getRequestCount("search"), is((long) PAGES + 1));
+    }
+
+    @Test
+    public void updatesPagesMovedOutOfAncestorInPlace() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        JsonNode item = server.findPage(ExportMojoFactory.SPACE, "Item 00003");
+        String elsewhereId = server.createPage(ExportMojoFactory.SPACE, "Elsewhere", null, "");
+        server.movePage(item.get("id").asText(), elsewhereId);
+        long creates = server.getRequestCount("create");
+
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+
+        JsonNode ancestors = server.getPage(item.get("id").asText()).get("ancestors");
+        assertThat(ancestors.get(ancestors.size() - 1).get("id").asText(), is(elsewhereId));
+        assertThat(server.getPageCount(), is(PAGES + 3));
+        // the rejected creation reveals the page outside of the ancestor
+        assertThat(server.getRequestCount("create"), is(creates + 1));
+        assertThat(countOutcomes("SKIPPED"), is(PAGES + 1));
+    }
+
+    @Test
+    public void findsPagesMovedOutOfAncestorWhenReconciling() throws Exception {
+        ExportMojoFactory.create(server, rootId, docs, report).execute();
+        JsonNode item = server.findPage(ExportMojoFactory.SPACE, "Item 00003");
+        String elsewhereId = server.createPage(ExportMojoFactory.SPACE, "Elsewhere", null, "");
+        server.movePage(item.get("id").asText(), elsewhereId);
+        long creates = server.getRequestCount("create");
+
+        ExportMojo mojo = ExportMojoFactory.create(server, rootId, docs, report);
+        ExportMojoFactory.set(mojo, "reconcileHierarchy", true);
+        mojo.execute();
+
+        JsonNode ancestors = server.getPage(item.get("id").asText()).get("ancestors");
+        assertThat(ancestors.get(ancestors.size() - 1).get("id").asText(), is(elsewhereId));
+        assertThat(server.getPageCount(), is(PAGES + 3));
+        assertThat(server.getRequestCount("create"), is(creates));
+        assertThat(countOutcomes("SKIPPED"), is(PAGES + 1));
+    }
+
+    @Test
+    public void rejectsAncestorFromOtherSpace() throws Exception {
+        String otherRootId = server.createPage("OTHER", "Other root", null, "");
+
+        try {
+            ExportMojoFactory.create(server, otherRootId, docs, report).execute();
+            fail("Export under ancestor from other space must fail");
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage().contains("is in space OTHER"), is(true));
+        }
+        assertThat(server.getRequestCount("create"), is(0L));
+    }
+
+    private int countOutcomes(String outcome) throws Exception {
+        int count = 0;
+        for (JsonNode page : readReport().get("pageMetrics")) {
+            if (outcome.equals(page.get("outcome").asText())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private JsonNode readReport() throws Exception {
+        return new ObjectMapper().readTree(report);
+    }
+}
@@ -0,0 +1,92 @@
+package com.nickbarban.rest;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.nickbarban.model.ConfluencePage;
+import com.nickbarban.report.ExportMetrics;
+import com.nickbarban.rest.transport.ConfluenceTransport;
+import com.nickbarban.rest.transport.TransportType;
+import com.nickbarban.testsupport.FakeConfluenceServer;
+import com.nickbarban.testsupport.QuietLog;
+import okhttp3.HttpUrl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class ConfluenceClientTest {
+
+    private static final String SPACE = "DOCS";
+
+    private FakeConfluenceServer server;
+
+    private ConfluenceTransport transport;
+
+    private ConfluenceClient client;
+
+    private String rootId;
+
+    @Before
+    public void setUp() throws Exception {
+        server = FakeConfluenceServer.start();
+        transport = TransportType.OKHTTP.create();
+        client = new ConfluenceClient("user", "secret", HttpUrl.parse(server.getBaseUrl()), new QuietLog(),
+                transport, null, new ExportMetrics(), null);
+        rootId = server.createPage(SPACE, "Root", null, "");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        transport.close();
+        server.close();
+    }
+
+    @Test
+    public void findsExactTitleOnLaterSearchPage() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            server.createPage(SPACE, i % 2 == 0 ? "ITEM \"A\"" : "item \"a\"", rootId, "");
+        }
+        String id = server.createPage(SPACE, "Item \"A\"", rootId, "");
+
+        ConfluencePage page = client.getPageByTitleAndSpace("Item \"A\"", SPACE, rootId);
+
+        assertThat(page.getId(), is(id));
+        assertThat(server.getRequestCount("search"), is(2L));
+    }
+
+    @Test
+    public void searchesOnlyUnderAncestor() throws Exception {
+        String otherRootId = server.createPage(SPACE, "Other root", null, "");
+        String otherId = server.createPage(SPACE, "Item", otherRootId, "");
+
+        assertThat(client.getPageByTitleAndSpace("Item", SPACE, rootId), is(nullValue()));
+        assertThat(client.getPageByTitleAndSpace("Item", SPACE, null).getId(), is(otherId));
+
+        String id = server.createPage(SPACE, "Item", rootId, "");
+        assertThat(client.getPageByTitleAndSpace("Item", SPACE, rootId).getId(), is(id));
+    }
+
+    @Test
+    public void stalledServerFailsWithTimeout() throws Exception {
+        server.withLatency(5000, 0);
+
+        for (TransportType type : TransportType.values()) {
+            try (ConfluenceTransport stalled = type.create(200)) {
+                ConfluenceClient stalledClient = new ConfluenceClient("user", "secret",
+                        HttpUrl.parse(server.getBaseUrl()), new QuietLog(), stalled, null, new ExportMetrics(), null);
+                long start = System.nanoTime();
+                try {
+                    stalledClient.getPageByTitleAndSpace("Item", SPACE, rootId);
+                    fail(String.format("Transport %s must time out", type));
+                } catch (ConfluenceTransportException e) {
+                    assertThat(e.getCause().getClass().getSimpleName().endsWith("TimeoutException"), is(true));
+                }
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000, is(true));
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.nickbarban.rest;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.nickbarban.rest.transport.ConfluenceTransport;
+import com.nickbarban.rest.transport.TransportRequest;
+import com.nickbarban.rest.transport.TransportResponse;
+import com.nickbarban.testsupport.QuietLog;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RequestHedgerTest {
+
+    private static final TransportRequest REQUEST = TransportRequest.get(URI.create("http://localhost/content"),
+            Collections.emptyMap());
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final StubTransport transport = new StubTransport();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void hedgeWinsAndCancelsSlowPrimary() throws Exception {
+        RequestHedger hedger = new RequestHedger(50, 100, new QuietLog());
+        warmUp(hedger);
+
+        CompletableFuture<TransportResponse> primary = new CompletableFuture<>();
+        TransportResponse hedgeResponse = response();
+        transport.responses.add(primary);
+        transport.responses.add(CompletableFuture.completedFuture(hedgeResponse));
+
+        assertThat(hedger.execute(transport, REQUEST), is(sameInstance(hedgeResponse)));
+        assertThat(primary.isCancelled(), is(true));
+        assertThat(transport.calls.size(), is(22));
+    }
+
+    @Test
+    public void doesNotHedgeOverBudget() throws Exception {
+        RequestHedger hedger = new RequestHedger(50, 0, new QuietLog());
+        warmUp(hedger);
+
+        TransportResponse primaryResponse = response();
+        transport.responses.add(delayed(primaryResponse, 20));
+
+        assertThat(hedger.execute(transport, REQUEST), is(sameInstance(primaryResponse)));
+        assertThat(transport.calls.size(), is(21));
+    }
+
+    @Test
+    public void samplesCancelledPrimaries() throws Exception {
+        RequestHedger hedger = new RequestHedger(90, 100, new QuietLog());
+        warmUp(hedger);
+
+        for (int i = 0; i < 20; i++) {
+            transport.responses.add(new CompletableFuture<>());
+            transport.responses.add(delayed(response(), 100));
+            hedger.execute(transport, REQUEST);
+        }
+        assertThat(transport.calls.size(), is(60));
+
+        // the hedge delay now includes the time the cancelled primaries were waited for
+        transport.responses.add(delayed(response(), 10));
+        hedger.execute(transport, REQUEST);
+        assertThat(transport.calls.size(), is(61));
+    }
+
+    @Test
+    public void closesHedgeResponseWhenPrimaryFailedFirst() throws Exception {
+        CompletableFuture<TransportResponse> primary = new CompletableFuture<>();
+        // the primary fails after the hedge was decided, but before it is sent
+        RequestHedger hedger = new RequestHedger(50, 100, new QuietLog() {
+            @Override
+            public void debug(CharSequence content) {
+                primary.completeExceptionally(new IOException("Connection reset"));
+            }
+        });
+        warmUp(hedger);
+
+        AtomicBoolean closed = new AtomicBoolean();
+        TransportResponse hedgeResponse = new TransportResponse(REQUEST, 200, new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        });
+        transport.responses.add(primary);
+        transport.responses.add(CompletableFuture.completedFuture(hedgeResponse));
+
+        try {
+            hedger.execute(transport, REQUEST);
+            fail("Request must fail with the primary");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("Connection reset"));
+        }
+        assertThat(transport.calls.size(), is(22));
+        assertThat(closed.get(), is(true));
+    }
+
+    private void warmUp(RequestHedger hedger) throws Exception {
+        for (int i = 0; i < 20; i++) {
+            transport.responses.add(CompletableFuture.completedFuture(response()));
+            hedger.execute(transport, REQUEST);
+        }
+    }
+
+    private CompletableFuture<TransportResponse> delayed(TransportResponse response, long millis) {
+        CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+        scheduler.schedule(() -> future.complete(response), millis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private static TransportResponse response() {
+        return new TransportResponse(REQUEST, 200, new ByteArrayInputStream(new byte[0]));
+    }
+
+    private static class StubTransport implements ConfluenceTransport {
+
+        private final Deque<CompletableFuture<TransportResponse>> responses = new ArrayDeque<>();
+
+        private final List<TransportRequest> calls = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public TransportResponse execute(TransportRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+            calls.add(request);
+            return responses.remove();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
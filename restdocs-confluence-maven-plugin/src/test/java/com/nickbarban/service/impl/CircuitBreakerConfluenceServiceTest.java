@@ -0,0 +1,201 @@
+package com.nickbarban.service.impl;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.nickbarban.model.ConfluencePage;
+import com.nickbarban.model.PageBody;
+import com.nickbarban.rest.ConfluenceResponseException;
+import com.nickbarban.rest.ConfluenceTransportException;
+import com.nickbarban.service.CircuitOpenException;
+import com.nickbarban.service.ConfluenceService;
+import com.nickbarban.service.ErrorBudgetExhaustedException;
+import com.nickbarban.testsupport.QuietLog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.List;
+
+public class CircuitBreakerConfluenceServiceTest {
+
+    private static final PageBody BODY = new PageBody("content", "hash");
+
+    private final StubService delegate = new StubService();
+
+    @Test
+    public void opensAfterConsecutiveFailuresAndClosesAfterProbe() throws Exception {
+        CircuitBreakerConfluenceService breaker = breaker(-1, 3, 50, -1);
+        delegate.failure = timeout();
+
+        for (int i = 0; i < 3; i++) {
+            assertFailure(breaker, ConfluenceTransportException.class);
+        }
+        assertThat(assertFailure(breaker, CircuitOpenException.class).getMessage(),
+                containsString("because 3 calls failed in a row"));
+        assertThat(delegate.calls, is(3));
+
+        Thread.sleep(60);
+        assertFailure(breaker, ConfluenceTransportException.class);
+        assertThat(delegate.calls, is(4));
+        assertThat(assertFailure(breaker, CircuitOpenException.class).getMessage(),
+                containsString("because probe failed: Page page is not published"));
+
+        Thread.sleep(60);
+        delegate.failure = null;
+        assertThat(breaker.saveOrUpdate("1", BODY, "probe"), is("id"));
+        assertThat(breaker.saveOrUpdate("1", BODY, "page"), is("id"));
+        assertThat(delegate.calls, is(6));
+    }
+
+    @Test
+    public void opensOnFailureRate() throws Exception {
+        CircuitBreakerConfluenceService breaker = breaker(50, -1, 10000, -1);
+
+        for (int i = 0; i < 10; i++) {
+            delegate.failure = i % 2 == 0 ? new ConfluenceResponseException("Unavailable", 503) : null;
+            try {
+                breaker.saveOrUpdate("1", BODY, "page " + i);
+            } catch (MojoExecutionException e) {
+                assertThat(e, is(instanceOf(MojoExecutionException.class)));
+            }
+        }
+        assertThat(assertFailure(breaker, CircuitOpenException.class).getMessage(),
+                containsString("because 5 of last 10 calls failed"));
+        assertThat(delegate.calls, is(10));
+    }
+
+    @Test
+    public void clientErrorsDoNotOpen() throws Exception {
+        CircuitBreakerConfluenceService breaker = breaker(50, 3, 10000, -1);
+        delegate.failure = new ConfluenceResponseException("Title exists", 400);
+
+        for (int i = 0; i < 10; i++) {
+            assertFailure(breaker, ConfluenceResponseException.class);
+        }
+        delegate.failure = new MojoExecutionException("Page is still in conflict after 3 retries",
+                new ConfluenceResponseException("Conflict", 409));
+        assertFailure(breaker, MojoExecutionException.class);
+        assertThat(delegate.calls, is(11));
+        assertThat(breaker.summary().contains("failed: 11"), is(true));
+        assertThat(breaker.summary().contains("is CLOSED"), is(true));
+    }
+
+    @Test
+    public void rateLimitingOpens() throws Exception {
+        CircuitBreakerConfluenceService breaker = breaker(-1, 2, 10000, -1);
+        delegate.failure = new ConfluenceResponseException("Too many requests", 429);
+
+        assertFailure(breaker, ConfluenceResponseException.class);
+        assertFailure(breaker, ConfluenceResponseException.class);
+        assertFailure(breaker, CircuitOpenException.class);
+    }
+
+    @Test
+    public void reconciliationGoesThroughBreaker() throws Exception {
+        CircuitBreakerConfluenceService breaker = breaker(-1, 2, 10000, -1);
+        delegate.failure = timeout();
+        ConfluencePage page = new ConfluencePage();
+        page.setTitle("moved");
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                breaker.movePage(page, "2");
+                fail("Move must fail");
+            } catch (ConfluenceTransportException e) {
+                assertThat(e.getMessage(), is("Injected failure"));
+            }
+        }
+        try {
+            breaker.getChildPages("2");
+            fail("Child pages must be rejected");
+        } catch (CircuitOpenException e) {
+            assertThat(e.getMessage(), containsString("Child pages of 2 are not read"));
+        }
+        try {
+            breaker.checkAncestor("1");
+            fail("Ancestor check must be rejected");
+        } catch (CircuitOpenException e) {
+            assertThat(e.getMessage(), containsString("Ancestor 1 is not checked"));
+        }
+        assertFailure(breaker, CircuitOpenException.class);
+        assertThat(delegate.calls, is(2));
+        assertThat(breaker.summary().contains("rejected by open circuit breaker: 1"), is(true));
+    }
+
+    @Test
+    public void stopsWhenErrorBudgetIsExhausted() throws Exception {
+        CircuitBreakerConfluenceService breaker = breaker(-1, -1, 10000, 2);
+        delegate.failure = timeout();
+
+        for (int i = 0; i < 3; i++) {
+            assertFailure(breaker, ConfluenceTransportException.class);
+        }
+        delegate.failure = null;
+        assertFailure(breaker, ErrorBudgetExhaustedException.class);
+        assertThat(breaker.isBudgetExhausted(), is(true));
+        assertThat(delegate.calls, is(3));
+        assertThat(breaker.summary().contains("failed: 3"), is(true));
+        assertThat(breaker.summary().contains("not attempted: 1"), is(true));
+    }
+
+    private CircuitBreakerConfluenceService breaker(int failureRate, int consecutiveFailures, long openMillis,
+                                                    int maxFailedPages) {
+        return new CircuitBreakerConfluenceService(delegate, failureRate, 10, consecutiveFailures, openMillis,
+                maxFailedPages, new QuietLog());
+    }
+
+    private MojoExecutionException assertFailure(CircuitBreakerConfluenceService breaker, Class<?> type) {
+        try {
+            breaker.saveOrUpdate("1", BODY, "page");
+        } catch (MojoExecutionException e) {
+            assertThat(e.getClass().getName(), is(type.getName()));
+            return e;
+        }
+        throw new AssertionError("Page must fail");
+    }
+
+    private static MojoExecutionException timeout() {
+        return new ConfluenceTransportException("Injected failure", new SocketTimeoutException("Read timed out"));
+    }
+
+    private static class StubService implements ConfluenceService {
+
+        private MojoExecutionException failure;
+
+        private int calls;
+
+        @Override
+        public void checkAncestor(String anchestorId) throws MojoExecutionException {
+            call();
+        }
+
+        @Override
+        public String saveOrUpdate(String anchestorId, PageBody body, String title) throws MojoExecutionException {
+            call();
+            return "id";
+        }
+
+        @Override
+        public List<ConfluencePage> getChildPages(String parentId) throws MojoExecutionException {
+            call();
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void movePage(ConfluencePage page, String parentId) throws MojoExecutionException {
+            call();
+        }
+
+        private void call() throws MojoExecutionException {
+            calls++;
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
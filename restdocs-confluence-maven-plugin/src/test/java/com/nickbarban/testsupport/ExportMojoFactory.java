@@ -0,0 +1,77 @@
+package com.nickbarban.testsupport;
+
+import com.nickbarban.ExportMojo;
+import com.nickbarban.rest.transport.TransportType;
+import org.apache.maven.plugin.AbstractMojo;
+
+import java.io.File;
+import java.lang.reflect.Field;
+
+/**
+ * Creates {@link ExportMojo} configured like Maven would, pointing to a {@link FakeConfluenceServer}.
+ */
+public final class ExportMojoFactory {
+
+    public static final String SPACE = "DOCS";
+
+    private ExportMojoFactory() {
+    }
+
+    public static ExportMojo create(FakeConfluenceServer server, String ancestorId, File docsDirectory,
+                                    File reportFile) {
+        return create(server, ancestorId, docsDirectory, reportFile, TransportType.OKHTTP);
+    }
+
+    public static ExportMojo create(FakeConfluenceServer server, String ancestorId, File docsDirectory,
+                                    File reportFile, TransportType transport) {
+        ExportMojo mojo = new ExportMojo();
+        configure(mojo, server, ancestorId, transport);
+        set(mojo, "generatedDocsDirectory", docsDirectory);
+        set(mojo, "reportFile", reportFile);
+        set(mojo, "pageValidatorsFile", new File(docsDirectory.getParentFile(), "page-validators.json"));
+        return mojo;
+    }
+
+    /**
+     * Set parameters common to all export goals.
+     */
+    public static void configure(AbstractMojo mojo, FakeConfluenceServer server, String ancestorId,
+                                 TransportType transport) {
+        mojo.setLog(new QuietLog());
+        set(mojo, "childrenDirectoryName", SyntheticDocs.CHILDREN);
+        set(mojo, "indexFileName", SyntheticDocs.INDEX);
+        set(mojo, "anchestorId", ancestorId);
+        set(mojo, "userName", "user");
+        set(mojo, "password", "secret");
+        set(mojo, "confluenceBaseUrl", server.getBaseUrl());
+        set(mojo, "space", SPACE);
+        set(mojo, "maxConflictRetries", 3);
+        set(mojo, "hedgePercentile", 95.0);
+        set(mojo, "hedgeBudgetPercent", 10);
+        set(mojo, "transport", transport);
+        set(mojo, "exportThreads", 4);
+        set(mojo, "circuitBreakerFailureRate", 50);
+        set(mojo, "circuitBreakerWindowSize", 20);
+        set(mojo, "circuitBreakerConsecutiveFailures", 5);
+        set(mojo, "circuitBreakerOpenMillis", 10000L);
+        set(mojo, "maxFailedPages", -1);
+        set(mojo, "reconcileHierarchy", false);
+        set(mojo, "searchUnderAncestor", true);
+    }
+
+    public static void set(AbstractMojo mojo, String name, Object value) {
+        for (Class<?> type = mojo.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(mojo, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // parameter is declared in superclass
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Can not set mojo parameter " + name, e);
+            }
+        }
+        throw new IllegalStateException("Unknown mojo parameter " + name);
+    }
+}
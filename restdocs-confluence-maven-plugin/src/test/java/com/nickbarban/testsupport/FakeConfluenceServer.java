@@ -0,0 +1,498 @@
+package com.nickbarban.testsupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the Confluence REST API.
+ * <p>Implements {@code content}, {@code content/search}, child page listing and page version semantics
+ * including 409 on stale versions. Latency, throttling (429), server errors and version conflicts
+ * can be injected.<\p>
+ */
+public class FakeConfluenceServer implements Closeable {
+
+    public static final String CONTEXT_PATH = "/rest/api";
+
+    private static final Pattern TITLE = Pattern.compile("title=\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private static final Pattern SPACE = Pattern.compile("space=([\\w~]+)");
+
+    private static final Pattern ANCESTOR = Pattern.compile("ancestor=(\\d+)");
+
+    private static final int DEFAULT_LIMIT = 25;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, ObjectNode> pages = new LinkedHashMap<>();
+
+    private final Map<String, AtomicLong> requestCounts = new HashMap<>();
+
+    private final AtomicLong ids = new AtomicLong(1000);
+
+    private final AtomicInteger pendingConflicts = new AtomicInteger();
+
+    private final Random random = new Random(42);
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private volatile long latencyMillis;
+
+    private volatile long latencyJitterMillis;
+
+    private volatile double throttleRate;
+
+    private volatile double errorRate;
+
+    private volatile String errorMethod;
+
+    private volatile double conflictRate;
+
+    private FakeConfluenceServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    public static FakeConfluenceServer start() throws IOException {
+        // without it delayed ACKs add ~40 ms to every keep-alive request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        FakeConfluenceServer fake = new FakeConfluenceServer(server, executor);
+        server.createContext(CONTEXT_PATH, fake::handle);
+        server.setExecutor(executor);
+        server.start();
+        return fake;
+    }
+
+    public String getBaseUrl() {
+        return String.format("http://localhost:%s%s", server.getAddress().getPort(), CONTEXT_PATH);
+    }
+
+    /**
+     * Latency added to every response, uniformly distributed in [latency, latency + jitter].
+     */
+    public FakeConfluenceServer withLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * Rate of requests rejected with 429 Too Many Requests.
+     */
+    public FakeConfluenceServer withThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+        return this;
+    }
+
+    /**
+     * Rate of requests failed with 500 Internal Server Error.
+     */
+    public FakeConfluenceServer withErrorRate(double errorRate) {
+        return withErrorRate(errorRate, null);
+    }
+
+    /**
+     * Rate of requests with the given HTTP method failed with 500 Internal Server Error.
+     */
+    public FakeConfluenceServer withErrorRate(double errorRate, String method) {
+        this.errorRate = errorRate;
+        this.errorMethod = method;
+        return this;
+    }
+
+    /**
+     * Rate of page updates which lose the race against a simulated concurrent writer and get 409 Conflict.
+     */
+    public FakeConfluenceServer withConflictRate(double conflictRate) {
+        this.conflictRate = conflictRate;
+        return this;
+    }
+
+    /**
+     * Make the next page updates lose the race against a simulated concurrent writer.
+     */
+    public FakeConfluenceServer withConflicts(int count) {
+        pendingConflicts.set(count);
+        return this;
+    }
+
+    public synchronized String createPage(String space, String title, String ancestorId, String content) {
+        String id = String.valueOf(ids.incrementAndGet());
+        ObjectNode page = objectMapper.createObjectNode();
+        page.put("id", id);
+        page.put("type", "page");
+        page.put("status", "current");
+        page.put("title", title);
+        page.putObject("space").put("key", space);
+        ObjectNode storage = page.putObject("body").putObject("storage");
+        storage.put("value", content);
+        storage.put("representation", "storage");
+        page.putObject("version").put("number", 1);
+        ArrayNode ancestors = page.putArray("ancestors");
+        if (ancestorId != null) {
+            ancestors.addAll(ancestorsOf(ancestorId));
+        }
+        pages.put(id, page);
+        return id;
+    }
+
+    /**
+     * Simulate an edit made by somebody else.
+     */
+    public synchronized void editPage(String id, String content) {
+        ObjectNode page = pages.get(id);
+        ((ObjectNode) page.get("body").get("storage")).put("value", content);
+        int number = page.get("version").get("number").asInt();
+        page.putObject("version").put("number", number + 1);
+    }
+
+    /**
+     * Simulate a page moved by somebody else.
+     */
+    public synchronized void movePage(String id, String parentId) {
+        setParent(pages.get(id), parentId);
+    }
+
+    public synchronized JsonNode getPage(String id) {
+        return pages.get(id).deepCopy();
+    }
+
+    public synchronized JsonNode findPage(String space, String title) {
+        for (ObjectNode page : pages.values()) {
+            if (page.get("title").asText().equals(title) && page.get("space").get("key").asText().equals(space)) {
+                return page.deepCopy();
+            }
+        }
+        return null;
+    }
+
+    public synchronized int getPageCount() {
+        return pages.size();
+    }
+
+    public synchronized long getRequestCount(String endpoint) {
+        AtomicLong count = requestCounts.get(endpoint);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            delay();
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length()).split("/");
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            if (path.length < 2 || !"content".equals(path[1])) {
+                respond(exchange, 404, error("Not found"));
+            } else if (random() < throttleRate) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 429, error("Rate limit exceeded"));
+            } else if ((errorMethod == null || errorMethod.equals(method)) && random() < errorRate) {
+                respond(exchange, 500, error("Injected failure"));
+            } else if ("GET".equals(method) && path.length == 3 && "search".equals(path[2])) {
+                count("search");
+                respond(exchange, 200, search(query, exchange.getRequestURI().getPath()));
+            } else if ("GET".equals(method) && path.length == 5 && "child".equals(path[3])) {
+                count("children");
+                respond(exchange, 200, children(path[2], query, exchange.getRequestURI().getPath()));
+            } else if ("GET".equals(method) && path.length == 3) {
+                count("get");
+                respondWithPage(exchange, path[2], query.get("expand"),
+                        exchange.getRequestHeaders().getFirst("If-None-Match"));
+            } else if ("POST".equals(method) && path.length == 2) {
+                count("create");
+                create(exchange, objectMapper.readTree(exchange.getRequestBody()));
+            } else if ("PUT".equals(method) && path.length == 3) {
+                count("update");
+                update(exchange, path[2], objectMapper.readTree(exchange.getRequestBody()));
+            } else {
+                respond(exchange, 405, error("Method not allowed"));
+            }
+        } catch (RuntimeException e) {
+            respond(exchange, 500, error(e.toString()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Titles match case-insensitively like in Confluence, so a search can return several pages.
+     */
+    private synchronized ObjectNode search(Map<String, String> query, String path) {
+        String cql = query.getOrDefault("cql", "");
+        Matcher title = TITLE.matcher(cql);
+        Matcher space = SPACE.matcher(cql);
+        Matcher ancestor = ANCESTOR.matcher(cql);
+        String titleValue = title.find() ? title.group(1).replace("\\\"", "\"") : null;
+        String spaceValue = space.find() ? space.group(1) : null;
+        String ancestorValue = ancestor.find() ? ancestor.group(1) : null;
+
+        List<JsonNode> matches = new ArrayList<>();
+        for (ObjectNode page : pages.values()) {
+            if ((titleValue == null || page.get("title").asText().equalsIgnoreCase(titleValue))
+                    && (spaceValue == null || page.get("space").get("key").asText().equals(spaceValue))
+                    && (ancestorValue == null || hasAncestor(page, ancestorValue))) {
+                matches.add(summary(page, null));
+            }
+        }
+        return resultPage(matches, query, path);
+    }
+
+    private synchronized ObjectNode children(String id, Map<String, String> query, String path) {
+        List<JsonNode> matches = new ArrayList<>();
+        for (ObjectNode page : pages.values()) {
+            JsonNode ancestors = page.get("ancestors");
+            if (ancestors.size() > 0 && ancestors.get(ancestors.size() - 1).get("id").asText().equals(id)) {
+                matches.add(summary(page, query.get("expand")));
+            }
+        }
+        return resultPage(matches, query, path);
+    }
+
+    private synchronized void respondWithPage(HttpExchange exchange, String id, String expand, String ifNoneMatch)
+            throws IOException {
+        ObjectNode page = pages.get(id);
+        if (page == null) {
+            respond(exchange, 404, error("No content found with id " + id));
+            return;
+        }
+        String etag = String.format("\"%s-%s-%s\"", id, page.get("version").get("number").asInt(),
+                expand == null ? "" : expand.hashCode());
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(ifNoneMatch)) {
+            count("not-modified");
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        ObjectNode result = page.deepCopy();
+        if (expand == null || !expand.contains("body.storage")) {
+            result.remove("body");
+        }
+        if (expand == null || !expand.contains("ancestors")) {
+            result.remove("ancestors");
+        }
+        respond(exchange, 200, result);
+    }
+
+    private synchronized void create(HttpExchange exchange, JsonNode request) throws IOException {
+        String space = request.path("space").path("key").asText();
+        String title = request.path("title").asText();
+
+        if (findPage(space, title) != null) {
+            respond(exchange, 400, error("A page with this title already exists"));
+            return;
+        }
+
+        JsonNode ancestors = request.path("ancestors");
+        String ancestorId = ancestors.size() > 0 ? ancestors.get(ancestors.size() - 1).path("id").asText() : null;
+        String id = createPage(space, title, ancestorId, request.path("body").path("storage").path("value").asText());
+        copyVersionMessage(request, pages.get(id));
+        respond(exchange, 200, pages.get(id));
+    }
+
+    private synchronized void update(HttpExchange exchange, String id, JsonNode request) throws IOException {
+        ObjectNode page = pages.get(id);
+        if (page == null) {
+            respond(exchange, 404, error("No content found with id " + id));
+            return;
+        }
+
+        int current = page.get("version").get("number").asInt();
+        if (pendingConflicts.getAndUpdate(c -> Math.max(0, c - 1)) > 0 || random() < conflictRate) {
+            editPage(id, page.get("body").get("storage").get("value").asText());
+            current++;
+        }
+
+        int requested = request.path("version").path("number").asInt();
+        if (requested != current + 1) {
+            respond(exchange, 409, error(String.format("Version must be incremented on update. Current version is: %s",
+                    current)));
+            return;
+        }
+
+        page.putObject("version").put("number", requested);
+        copyVersionMessage(request, page);
+        if (request.has("title")) {
+            page.put("title", request.get("title").asText());
+        }
+        if (request.path("body").path("storage").has("value")) {
+            ((ObjectNode) page.get("body").get("storage")).put("value",
+                    request.get("body").get("storage").get("value").asText());
+        }
+        JsonNode ancestors = request.path("ancestors");
+        if (ancestors.size() > 0) {
+            setParent(page, ancestors.get(ancestors.size() - 1).get("id").asText());
+        }
+        respond(exchange, 200, page);
+    }
+
+    private void copyVersionMessage(JsonNode request, ObjectNode page) {
+        JsonNode message = request.path("version").path("message");
+        if (message.isTextual()) {
+            ((ObjectNode) page.get("version")).put("message", message.asText());
+        }
+    }
+
+    private ArrayNode ancestorsOf(String parentId) {
+        ArrayNode result = objectMapper.createArrayNode();
+        ObjectNode parent = pages.get(parentId);
+        if (parent != null) {
+            result.addAll((ArrayNode) parent.get("ancestors"));
+        }
+        result.addObject().put("id", parentId);
+        return result;
+    }
+
+    /**
+     * Move page under the parent, ancestors of its descendants are updated too.
+     */
+    private void setParent(ObjectNode page, String parentId) {
+        page.putArray("ancestors").addAll(ancestorsOf(parentId));
+        for (ObjectNode child : pages.values()) {
+            JsonNode ancestors = child.get("ancestors");
+            if (ancestors.size() > 0 && ancestors.get(ancestors.size() - 1).get("id").asText()
+                    .equals(page.get("id").asText())) {
+                setParent(child, page.get("id").asText());
+            }
+        }
+    }
+
+    private boolean hasAncestor(ObjectNode page, String ancestorId) {
+        for (JsonNode ancestor : page.get("ancestors")) {
+            if (ancestor.get("id").asText().equals(ancestorId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ObjectNode summary(ObjectNode page, String expand) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.set("id", page.get("id"));
+        result.set("type", page.get("type"));
+        result.set("status", page.get("status"));
+        result.set("title", page.get("title"));
+        if (expand != null && expand.contains("version")) {
+            result.set("version", page.get("version").deepCopy());
+        }
+        return result;
+    }
+
+    private ObjectNode resultPage(List<JsonNode> matches, Map<String, String> query, String path) {
+        int start = Integer.parseInt(query.getOrDefault("start", "0"));
+        int limit = Integer.parseInt(query.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)));
+        ObjectNode result = objectMapper.createObjectNode();
+        ArrayNode results = result.putArray("results");
+        for (int i = start; i < Math.min(matches.size(), start + limit); i++) {
+            results.add(matches.get(i));
+        }
+        result.put("start", start);
+        result.put("limit", limit);
+        result.put("size", results.size());
+        if (start + limit < matches.size()) {
+            Map<String, String> next = new LinkedHashMap<>(query);
+            next.put("start", String.valueOf(start + limit));
+            next.put("limit", String.valueOf(limit));
+            result.putObject("_links").put("next", path + "?" + encodeQuery(next));
+        }
+        return result;
+    }
+
+    private ObjectNode error(String message) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("message", message);
+        return result;
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void delay() {
+        long millis = latencyMillis + (latencyJitterMillis > 0 ? (long) (random() * latencyJitterMillis) : 0);
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private synchronized double random() {
+        return random.nextDouble();
+    }
+
+    private synchronized void count(String endpoint) {
+        requestCounts.computeIfAbsent(endpoint, e -> new AtomicLong()).incrementAndGet();
+    }
+
+    private String encodeQuery(Map<String, String> query) {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, String> parameter : query.entrySet()) {
+            try {
+                result.append(result.length() == 0 ? "" : "&")
+                        .append(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8.name()))
+                        .append('=')
+                        .append(URLEncoder.encode(parameter.getValue(), StandardCharsets.UTF_8.name()));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return result.toString();
+    }
+
+    private Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> result = new HashMap<>();
+        if (rawQuery == null) {
+            return result;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            result.put(URLDecoder.decode(name, StandardCharsets.UTF_8.name()),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8.name()));
+        }
+        return result;
+    }
+}
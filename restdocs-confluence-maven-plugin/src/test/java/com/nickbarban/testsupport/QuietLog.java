@@ -0,0 +1,85 @@
+package com.nickbarban.testsupport;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Log which drops debug and info messages, so large exports do not flood the output.
+ */
+public class QuietLog implements Log {
+
+    @Override
+    public boolean isDebugEnabled() {
+        return false;
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void debug(Throwable error) {
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return false;
+    }
+
+    @Override
+    public void info(CharSequence content) {
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void info(Throwable error) {
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return true;
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        System.err.println("[WARNING] " + content);
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        warn(content);
+        error.printStackTrace();
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        error.printStackTrace();
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        System.err.println("[ERROR] " + content);
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        error(content);
+        error.printStackTrace();
+    }
+
+    @Override
+    public void error(Throwable error) {
+        error.printStackTrace();
+    }
+}
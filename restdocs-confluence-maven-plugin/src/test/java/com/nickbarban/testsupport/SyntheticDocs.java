@@ -0,0 +1,58 @@
+package com.nickbarban.testsupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Generates a synthetic generated-docs tree: an index page and the given number of child pages.
+ */
+public final class SyntheticDocs {
+
+    public static final String INDEX = "index.html";
+
+    public static final String CHILDREN = "children";
+
+    private static final String SNIPPET = "<h2>%s</h2><table><thead><tr><th>Path</th><th>Type</th>"
+            + "<th>Optional</th><th>Description</th></tr></thead><tbody>%s</tbody></table>"
+            + "<pre><code>{\"id\": %s, \"name\": \"item %s\"}</code></pre>";
+
+    private static final String ROW = "<tr><td>field%s</td><td>String</td><td>true</td><td>Field %s of item.</td></tr>";
+
+    private SyntheticDocs() {
+    }
+
+    public static void generate(File directory, int pages) throws IOException {
+        File children = new File(directory, CHILDREN);
+        children.mkdirs();
+        write(new File(directory, INDEX), "<h1>API</h1>");
+
+        for (int i = 0; i < pages; i++) {
+            write(new File(children, childFileName(i)), content(i, 0));
+        }
+    }
+
+    /**
+     * Rewrite content of a child page, e.g. to trigger an update.
+     */
+    public static void touch(File directory, int page, int revision) throws IOException {
+        write(new File(new File(directory, CHILDREN), childFileName(page)), content(page, revision));
+    }
+
+    public static String childFileName(int page) {
+        return String.format("item%05d.html", page);
+    }
+
+    private static String content(int page, int revision) {
+        StringBuilder rows = new StringBuilder();
+        for (int row = 0; row < 20; row++) {
+            rows.append(String.format(ROW, row, row));
+        }
+        return String.format(SNIPPET, "Item " + page + " revision " + revision, rows, page, page);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,108 @@
+package com.nickbarban.utils;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.nickbarban.model.LocalPageTree;
+import com.nickbarban.testsupport.QuietLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class BundleRendererTest {
+
+    private static final String BUNDLE = "{"
+            + "\"operation\":\"item-resource/get-item\",\"format\":\"confluence\",\"title\":\"Get item\","
+            + "\"link\":\"item-resource-get-item\",\"method\":\"GET\",\"path\":\"/items/{id}\","
+            + "\"description\":\"Returns the <em>item</em>.\","
+            + "\"sections\":["
+            + "{\"name\":\"auto-path-parameters\",\"header\":\"Path parameters\",\"model\":{"
+            + "\"th-parameter\":\"Parameter\",\"th-type\":\"Type\",\"th-optional\":\"Optional\","
+            + "\"th-description\":\"Description\",\"no-params\":\"No parameters.\",\"hasContent\":true,"
+            + "\"content\":[{\"path\":\"id\",\"type\":\"Map&lt;String, Integer&gt;\",\"optional\":\"false\","
+            + "\"description\":\"Id of the <strong>item</strong>.\"}]}},"
+            + "{\"name\":\"auto-request-fields\",\"header\":\"Request fields\",\"model\":{"
+            + "\"no-request-body\":\"No request body.\",\"hasContent\":false,\"content\":[]}},"
+            + "{\"name\":\"http-response\",\"header\":\"Example response\"}],"
+            + "\"request\":{\"method\":\"GET\",\"uri\":\"http://localhost/items/1\",\"headers\":{},\"content\":\"\"},"
+            + "\"response\":{\"status\":200,\"headers\":{\"Content-Type\":[\"application/json\"]},"
+            + "\"content\":\"{\\\"name\\\":\\\"]]>\\\"}\"}}";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void rendersBundleToStorageFormat() throws Exception {
+        File bundle = temporaryFolder.newFile("auto-bundle.json");
+        Files.write(bundle.toPath(), BUNDLE.getBytes(StandardCharsets.UTF_8));
+
+        String content = new BundleRenderer(new QuietLog()).render(bundle);
+
+        assertThat(content, containsString("<h2 id=\"resources-item-resource-get-item\">Get item</h2>\n"
+                + "<p><code>GET /items/{id}</code></p>\n<p>Returns the <em>item</em>.</p>\n"));
+        assertThat(content, containsString("<tr><th>Parameter</th><th>Type</th><th>Optional</th>"
+                + "<th>Description</th></tr>\n<tr><td><code>id</code></td><td>Map&lt;String, Integer&gt;</td>"
+                + "<td>false</td><td>Id of the <strong>item</strong>.</td></tr>"));
+        assertThat(content, containsString("<h3>Request fields</h3>\n<p>No request body.</p>"));
+        assertThat(content, containsString("<![CDATA[HTTP/1.1 200\nContent-Type: application/json\n\n"
+                + "{\"name\":\"]]]]><![CDATA[>\"}]]>"));
+    }
+
+    @Test
+    public void rendersRequestExamples() throws Exception {
+        File bundle = temporaryFolder.newFile("auto-bundle.json");
+        Files.write(bundle.toPath(), BUNDLE
+                .replace("{\"name\":\"http-response\",\"header\":\"Example response\"}",
+                        "{\"name\":\"curl-request\",\"header\":\"Example curl request\"},"
+                                + "{\"name\":\"httpie-request\",\"header\":\"Example HTTPie request\"},"
+                                + "{\"name\":\"http-request\",\"header\":\"Example request\"}")
+                .replace("\"request\":{\"method\":\"GET\",\"uri\":\"http://localhost/items/1\",\"headers\":{},"
+                                + "\"content\":\"\"}",
+                        "\"request\":{\"method\":\"POST\",\"uri\":\"http://localhost:8080/items?draft=true\","
+                                + "\"headers\":{\"Content-Type\":[\"application/json\"],\"Host\":[\"localhost:8080\"],"
+                                + "\"Content-Length\":[\"20\"]},\"content\":\"{\\\"name\\\":\\\"Bob's\\\"}\"}")
+                .getBytes(StandardCharsets.UTF_8));
+
+        String content = new BundleRenderer(new QuietLog()).render(bundle);
+
+        assertThat(content, containsString("<h3>Example curl request</h3>\n<ac:structured-macro ac:name=\"code\">"
+                + "<ac:plain-text-body><![CDATA[$ curl 'http://localhost:8080/items?draft=true' -i -X POST "
+                + "-H 'Content-Type: application/json' -d '{\"name\":\"Bob'\\''s\"}']]>"));
+        assertThat(content, containsString("<![CDATA[$ echo '{\"name\":\"Bob'\\''s\"}' | "
+                + "http POST 'http://localhost:8080/items?draft=true' 'Content-Type:application/json']]>"));
+        assertThat(content, containsString("<![CDATA[POST /items?draft=true HTTP/1.1\n"
+                + "Content-Type: application/json\nHost: localhost:8080\nContent-Length: 20\n\n"
+                + "{\"name\":\"Bob's\"}]]>"));
+    }
+
+    @Test
+    public void escapesTextsOfOtherFormats() throws Exception {
+        File bundle = temporaryFolder.newFile("auto-bundle.json");
+        Files.write(bundle.toPath(), BUNDLE.replace("\"format\":\"confluence\"", "\"format\":\"asciidoctor\"")
+                .replace("Map&lt;String, Integer&gt;", "Map<String, Integer>").getBytes(StandardCharsets.UTF_8));
+
+        String content = new BundleRenderer(new QuietLog()).render(bundle);
+
+        assertThat(content, containsString("<td>Map&lt;String, Integer&gt;</td>"));
+    }
+
+    @Test
+    public void prefersBundleOverSectionSnippet() throws Exception {
+        File operation = temporaryFolder.newFolder("snippets", "item-resource", "get-item");
+        Files.write(new File(operation, "auto-bundle.json").toPath(), BUNDLE.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(operation, "auto-section.xhtml").toPath(),
+                "<!--include:auto-description-->".getBytes(StandardCharsets.UTF_8));
+
+        LocalPageTree tree = new DocumentUtils(new QuietLog())
+                .prepareSnippetPageTree("Api", new File(temporaryFolder.getRoot(), "snippets"));
+
+        assertThat(tree.getChildren().size(), is(1));
+        assertThat(tree.getChildren().get("Item resource get item").getContent(),
+                containsString("<h2 id=\"resources-item-resource-get-item\">Get item</h2>"));
+    }
+}
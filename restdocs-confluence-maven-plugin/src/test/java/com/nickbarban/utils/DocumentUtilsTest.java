@@ -0,0 +1,72 @@
+package com.nickbarban.utils;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.nickbarban.model.LocalPageTree;
+import com.nickbarban.testsupport.QuietLog;
+import com.nickbarban.testsupport.SyntheticDocs;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+public class DocumentUtilsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final DocumentUtils documentUtils = new DocumentUtils(new QuietLog());
+
+    @Test
+    public void cleansInBackgroundAndSweepsTombstones() throws Exception {
+        File output = new File(temporaryFolder.getRoot(), "confluence");
+        SyntheticDocs.generate(output, 50);
+        File tombstone = new File(temporaryFolder.getRoot(), "confluence.deleted-previous");
+        SyntheticDocs.generate(tombstone, 5);
+
+        documentUtils.cleanInBackground(output).get(10, TimeUnit.SECONDS);
+
+        assertThat(temporaryFolder.getRoot().list().length, is(0));
+    }
+
+    @Test
+    public void cleansMissingDirectoryInBackground() throws Exception {
+        documentUtils.cleanInBackground(new File(temporaryFolder.getRoot(), "confluence")).get(10, TimeUnit.SECONDS);
+
+        assertThat(temporaryFolder.getRoot().list().length, is(0));
+    }
+
+    @Test
+    public void assemblesPagesFromSnippets() throws Exception {
+        File snippets = temporaryFolder.newFolder("generated-snippets");
+        writeSnippet(snippets, "item-resource/get-item/auto-section.xhtml",
+                "<h2>Get item</h2>\n<!--include:auto-description-->\n<h3>Response fields</h3>\n"
+                        + "<!--include:auto-response-fields-->\n<!--include:auto-missing-->");
+        writeSnippet(snippets, "item-resource/get-item/auto-description.xhtml", "<p>Returns the item.</p>");
+        writeSnippet(snippets, "item-resource/get-item/auto-response-fields.xhtml", "<table><tbody/></table>");
+        writeSnippet(snippets, "item-resource/add-item/auto-section.xhtml", "<h2>Add item</h2>");
+        writeSnippet(snippets, "item-resource/add-item/curl-request.xhtml", "<ac:structured-macro/>");
+
+        LocalPageTree tree = documentUtils.prepareSnippetPageTree("Api", snippets);
+
+        assertThat(tree.getBody().getContent(), is("<ac:structured-macro ac:name=\"children\"/>"));
+        assertThat(new ArrayList<>(tree.getChildren().keySet()),
+                is(Arrays.asList("Item resource add item", "Item resource get item")));
+        assertThat(tree.getChildren().get("Item resource get item").getContent(),
+                is("<h2>Get item</h2>\n<p>Returns the item.</p>\n<h3>Response fields</h3>\n"
+                        + "<table><tbody/></table>\n"));
+    }
+
+    private void writeSnippet(File directory, String path, String content) throws Exception {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
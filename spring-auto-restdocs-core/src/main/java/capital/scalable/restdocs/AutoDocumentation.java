@@ -19,6 +19,7 @@
  */
 package capital.scalable.restdocs;
 
+import capital.scalable.restdocs.bundle.BundleSnippet;
 import capital.scalable.restdocs.misc.AuthorizationSnippet;
 import capital.scalable.restdocs.misc.DescriptionSnippet;
 import capital.scalable.restdocs.misc.MethodAndPathSnippet;
@@ -67,6 +68,10 @@ public abstract class AutoDocumentation {
         return new SectionBuilder().build();
     }
 
+    public static BundleSnippet bundle() {
+        return new SectionBuilder().buildBundle();
+    }
+
     public static SectionBuilder sectionBuilder() {
         return new SectionBuilder();
     }
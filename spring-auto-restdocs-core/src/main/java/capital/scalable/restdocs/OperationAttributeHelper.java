@@ -33,6 +33,7 @@ import java.util.Map;
 import capital.scalable.restdocs.constraints.ConstraintReader;
 import capital.scalable.restdocs.javadoc.JavadocReader;
 import capital.scalable.restdocs.misc.AuthorizationSnippet;
+import capital.scalable.restdocs.util.AutoTemplateFormats;
 import capital.scalable.restdocs.util.TemplateFormatting;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -137,7 +138,12 @@ public class OperationAttributeHelper {
     }
 
     public static TemplateFormatting determineTemplateFormatting(TemplateFormat templateFormat) {
-        return templateFormat.getId().equals(TemplateFormats.asciidoctor().getId())
-                ? TemplateFormatting.ASCIIDOC : TemplateFormatting.MARKDOWN;
+        if (templateFormat.getId().equals(TemplateFormats.asciidoctor().getId())) {
+            return TemplateFormatting.ASCIIDOC;
+        } else if (templateFormat.getId().equals(AutoTemplateFormats.confluence().getId())) {
+            return TemplateFormatting.CONFLUENCE;
+        } else {
+            return TemplateFormatting.MARKDOWN;
+        }
     }
 }
@@ -0,0 +1,127 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.bundle;
+
+import static capital.scalable.restdocs.OperationAttributeHelper.getDocumentationContext;
+import static capital.scalable.restdocs.OperationAttributeHelper.getTemplateFormat;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import capital.scalable.restdocs.misc.DescriptionSnippet;
+import capital.scalable.restdocs.misc.MethodAndPathSnippet;
+import capital.scalable.restdocs.section.SectionSnippet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.restdocs.operation.Operation;
+import org.springframework.restdocs.operation.OperationRequest;
+import org.springframework.restdocs.operation.OperationResponse;
+import org.springframework.restdocs.snippet.RestDocumentationContextPlaceholderResolverFactory;
+import org.springframework.restdocs.snippet.Snippet;
+import org.springframework.restdocs.snippet.StandardWriterResolver;
+import org.springframework.restdocs.snippet.WriterResolver;
+import org.springframework.restdocs.templates.TemplateFormat;
+
+/**
+ * Writes the whole documentation of an operation into one JSON file.
+ * <p>
+ * The bundle contains the models of the section snippets, the description and the example
+ * request and response, so tools can render the documentation with a single read instead of
+ * reading and parsing the individual snippets. Texts are formatted with the configured
+ * template format, which is recorded in the bundle.
+ */
+public class BundleSnippet implements Snippet {
+
+    public static final String BUNDLE = "auto-bundle";
+
+    private static final TemplateFormat JSON = new TemplateFormat() {
+        @Override
+        public String getId() {
+            return "json";
+        }
+
+        @Override
+        public String getFileExtension() {
+            return "json";
+        }
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final WriterResolver writerResolver = new StandardWriterResolver(
+            new RestDocumentationContextPlaceholderResolverFactory(), "UTF-8", JSON);
+
+    private final SectionSnippet sectionSnippet;
+
+    private final MethodAndPathSnippet methodAndPathSnippet = new MethodAndPathSnippet();
+
+    private final DescriptionSnippet descriptionSnippet = new DescriptionSnippet();
+
+    public BundleSnippet(SectionSnippet sectionSnippet) {
+        this.sectionSnippet = sectionSnippet;
+    }
+
+    @Override
+    public void document(Operation operation) throws IOException {
+        Writer writer = writerResolver.resolve(operation.getName(), BUNDLE,
+                getDocumentationContext(operation));
+        try {
+            objectMapper.writeValue(writer, createBundle(operation));
+        } finally {
+            writer.close();
+        }
+    }
+
+    protected Map<String, Object> createBundle(Operation operation) {
+        Map<String, Object> section = sectionSnippet.createBundleModel(operation);
+        Map<String, Object> methodAndPath = methodAndPathSnippet.createBundleModel(operation);
+
+        Map<String, Object> bundle = new LinkedHashMap<>();
+        bundle.put("operation", operation.getName());
+        bundle.put("format", getTemplateFormat(operation).getId());
+        bundle.put("title", section.get("title"));
+        bundle.put("link", section.get("link"));
+        bundle.put("method", methodAndPath.get("method"));
+        bundle.put("path", methodAndPath.get("path"));
+        bundle.put("description", descriptionSnippet.createBundleModel(operation).get("description"));
+        bundle.put("sections", section.get("sections"));
+        bundle.put("request", createRequest(operation.getRequest()));
+        bundle.put("response", createResponse(operation.getResponse()));
+        return bundle;
+    }
+
+    private Map<String, Object> createRequest(OperationRequest request) {
+        Map<String, Object> model = new LinkedHashMap<>();
+        model.put("method", request.getMethod().name());
+        model.put("uri", request.getUri().toString());
+        model.put("headers", request.getHeaders());
+        model.put("content", request.getContentAsString());
+        return model;
+    }
+
+    private Map<String, Object> createResponse(OperationResponse response) {
+        Map<String, Object> model = new LinkedHashMap<>();
+        model.put("status", response.getStatus().value());
+        model.put("headers", response.getHeaders());
+        model.put("content", response.getContentAsString());
+        return model;
+    }
+}
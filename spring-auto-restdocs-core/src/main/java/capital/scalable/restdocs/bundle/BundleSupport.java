@@ -0,0 +1,34 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.bundle;
+
+import java.util.Map;
+
+import org.springframework.restdocs.operation.Operation;
+
+public interface BundleSupport {
+    /**
+     * Model of the snippet to be included in the operation bundle.
+     *
+     * @param operation operation
+     * @return same model which is used to render the snippet template
+     */
+    Map<String, Object> createBundleModel(Operation operation);
+}
@@ -60,6 +60,13 @@ public class ConstraintReaderImpl implements ConstraintReader {
         return CONSTRAINT_CLASS != null ? createWithValidation() : createWithoutValidation();
     }
 
+    /**
+     * Returns the reader shared by all callers in this JVM.
+     */
+    public static ConstraintReaderImpl shared() {
+        return SharedReaderHolder.INSTANCE;
+    }
+
     static ConstraintReaderImpl createWithoutValidation() {
         return new ConstraintReaderImpl(new NoOpMethodParameterConstraintResolver());
     }
@@ -128,4 +135,8 @@ public class ConstraintReaderImpl implements ConstraintReader {
         }
         return singletonList(message);
     }
+
+    private static class SharedReaderHolder {
+        private static final ConstraintReaderImpl INSTANCE = create();
+    }
 }
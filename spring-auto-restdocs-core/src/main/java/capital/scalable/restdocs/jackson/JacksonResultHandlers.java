@@ -25,7 +25,9 @@ import static capital.scalable.restdocs.OperationAttributeHelper.setHandlerMetho
 import static capital.scalable.restdocs.OperationAttributeHelper.setJavadocReader;
 import static capital.scalable.restdocs.OperationAttributeHelper.setObjectMapper;
 
+import capital.scalable.restdocs.constraints.ConstraintReader;
 import capital.scalable.restdocs.constraints.ConstraintReaderImpl;
+import capital.scalable.restdocs.javadoc.JavadocReader;
 import capital.scalable.restdocs.javadoc.JavadocReaderImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.test.web.servlet.MvcResult;
@@ -34,16 +36,31 @@ import org.springframework.web.method.HandlerMethod;
 
 public abstract class JacksonResultHandlers {
 
+    /**
+     * Uses the readers shared by all tests in this JVM, so Javadoc is only read once.
+     */
     public static ResultHandler prepareJackson(ObjectMapper objectMapper) {
-        return new JacksonPreparingResultHandler(objectMapper);
+        return new JacksonPreparingResultHandler(objectMapper, null, null);
+    }
+
+    public static ResultHandler prepareJackson(ObjectMapper objectMapper,
+            JavadocReader javadocReader, ConstraintReader constraintReader) {
+        return new JacksonPreparingResultHandler(objectMapper, javadocReader, constraintReader);
     }
 
     private static class JacksonPreparingResultHandler implements ResultHandler {
 
         private final ObjectMapper objectMapper;
 
-        public JacksonPreparingResultHandler(ObjectMapper objectMapper) {
+        private final JavadocReader javadocReader;
+
+        private final ConstraintReader constraintReader;
+
+        public JacksonPreparingResultHandler(ObjectMapper objectMapper,
+                JavadocReader javadocReader, ConstraintReader constraintReader) {
             this.objectMapper = objectMapper;
+            this.javadocReader = javadocReader;
+            this.constraintReader = constraintReader;
         }
 
         @Override
@@ -55,8 +72,12 @@ public abstract class JacksonResultHandlers {
             }
             setObjectMapper(result.getRequest(), objectMapper);
             initRequestPattern(result.getRequest());
-            setJavadocReader(result.getRequest(), JavadocReaderImpl.createWithSystemProperty());
-            setConstraintReader(result.getRequest(), ConstraintReaderImpl.create());
+            // shared readers are looked up per request as the Javadoc directory
+            // system property might change between tests
+            setJavadocReader(result.getRequest(), javadocReader != null ? javadocReader
+                    : JavadocReaderImpl.sharedWithSystemProperty());
+            setConstraintReader(result.getRequest(), constraintReader != null ? constraintReader
+                    : ConstraintReaderImpl.shared());
         }
     }
 }
@@ -28,6 +28,46 @@ class ClassJavadoc {
     private String comment;
     private Map<String, FieldJavadoc> fields = new HashMap<>();
     private Map<String, MethodJavadoc> methods = new HashMap<>();
+    private transient boolean compacted;
+
+    /**
+     * Replaces the maps read by Jackson with compact immutable ones and interns map keys
+     * and tag values. Comments are mostly unique text and are not interned, the interner
+     * would only add an entry per comment.
+     * Has to be called before the instance is shared between threads.
+     */
+    ClassJavadoc compact(StringInterner interner) {
+        if (compacted) {
+            return this;
+        }
+        fields = CompactMap.copyOf(fields, interner);
+        for (FieldJavadoc fieldJavadoc : fields.values()) {
+            if (fieldJavadoc != null) {
+                fieldJavadoc.compact(interner);
+            }
+        }
+        methods = CompactMap.copyOf(methods, interner);
+        for (MethodJavadoc methodJavadoc : methods.values()) {
+            if (methodJavadoc != null) {
+                methodJavadoc.compact(interner);
+            }
+        }
+        compacted = true;
+        return this;
+    }
+
+    private static Map<String, String> compactStrings(Map<String, String> map,
+            StringInterner interner, boolean internValues) {
+        if (map == null || map.isEmpty()) {
+            return CompactMap.empty();
+        }
+        if (internValues) {
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                entry.setValue(interner.intern(entry.getValue()));
+            }
+        }
+        return CompactMap.copyOf(map, interner);
+    }
 
     public String getClassComment() {
         return comment;
@@ -87,6 +127,11 @@ class ClassJavadoc {
             return comment;
         }
 
+        void compact(StringInterner interner) {
+            parameters = compactStrings(parameters, interner, false);
+            tags = compactStrings(tags, interner, true);
+        }
+
         public String getParameterComment(String parameterName) {
             return parameters.get(parameterName);
         }
@@ -100,6 +145,10 @@ class ClassJavadoc {
         private String comment;
         private Map<String, String> tags = new HashMap<>();
 
+        void compact(StringInterner interner) {
+            tags = compactStrings(tags, interner, true);
+        }
+
         public String getComment() {
             return comment;
         }
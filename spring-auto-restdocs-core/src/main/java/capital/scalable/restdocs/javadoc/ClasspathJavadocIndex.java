@@ -0,0 +1,152 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.javadoc;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.slf4j.Logger;
+
+/**
+ * Index of the Javadoc files in classpath entries that contain the marker resource
+ * {@value #MARKER}, e.g. jars of shared DTO libraries.
+ * <p>
+ * The entries are scanned once and the jars are kept open, so reading the Javadoc of a class
+ * does not need a resource lookup and a new jar connection.
+ */
+class ClasspathJavadocIndex {
+    static final String MARKER = "META-INF/javadoc-json.index";
+    private static final Logger log = getLogger(ClasspathJavadocIndex.class);
+
+    private final Map<String, JarFile> jarEntries = new HashMap<>();
+    private final Map<String, File> fileEntries = new HashMap<>();
+
+    private ClasspathJavadocIndex() {
+    }
+
+    /**
+     * Returns the index of the class loader of the Javadoc reader, scanned on first use.
+     */
+    static ClasspathJavadocIndex get() {
+        return IndexHolder.INSTANCE;
+    }
+
+    static ClasspathJavadocIndex scan(ClassLoader classLoader) {
+        ClasspathJavadocIndex index = new ClasspathJavadocIndex();
+        try {
+            Enumeration<URL> markers = classLoader.getResources(MARKER);
+            while (markers.hasMoreElements()) {
+                index.add(markers.nextElement());
+            }
+        } catch (IOException e) {
+            log.error("Failed to scan classpath for {}", MARKER, e);
+        }
+        return index;
+    }
+
+    /**
+     * Opens the Javadoc file with the given path relative to the classpath root,
+     * or returns null if it is not in the index.
+     */
+    InputStream open(String relativePath) throws IOException {
+        String name = relativePath.replace(File.separatorChar, '/');
+        JarFile jarFile = jarEntries.get(name);
+        if (jarFile != null) {
+            return jarFile.getInputStream(jarFile.getEntry(name));
+        }
+        File file = fileEntries.get(name);
+        if (file != null) {
+            return new FileInputStream(file);
+        }
+        return null;
+    }
+
+    int size() {
+        return jarEntries.size() + fileEntries.size();
+    }
+
+    private void add(URL marker) {
+        try {
+            if ("jar".equals(marker.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) marker.openConnection();
+                addJar(new JarFile(new File(connection.getJarFileURL().toURI())));
+            } else if ("file".equals(marker.getProtocol())) {
+                File root = new File(marker.toURI()).getParentFile().getParentFile();
+                addDirectory(root, root);
+            }
+        } catch (IOException | URISyntaxException e) {
+            log.error("Failed to index Javadoc of {}", marker, e);
+        }
+    }
+
+    private void addJar(JarFile jarFile) {
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            if (isJavadocFile(name) && !contains(name)) {
+                jarEntries.put(name, jarFile);
+            }
+        }
+    }
+
+    private void addDirectory(File root, File dir) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                addDirectory(root, child);
+                continue;
+            }
+            String name = child.getPath().substring(root.getPath().length() + 1)
+                    .replace(File.separatorChar, '/');
+            if (isJavadocFile(name) && !contains(name)) {
+                fileEntries.put(name, child);
+            }
+        }
+    }
+
+    private boolean contains(String name) {
+        // first classpath entry wins
+        return jarEntries.containsKey(name) || fileEntries.containsKey(name);
+    }
+
+    private static boolean isJavadocFile(String name) {
+        return name.endsWith(".json") || name.endsWith(".smile");
+    }
+
+    private static class IndexHolder {
+        private static final ClasspathJavadocIndex INSTANCE =
+                scan(ClasspathJavadocIndex.class.getClassLoader());
+    }
+}
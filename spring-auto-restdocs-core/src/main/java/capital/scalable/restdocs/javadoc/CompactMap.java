@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.javadoc;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map with string keys backed by a sorted key array and a value array.
+ * <p>
+ * Javadoc maps are small and only read with {@link #get(Object)}, which is a binary search.
+ * All empty maps are the same instance.
+ */
+final class CompactMap<V> extends AbstractMap<String, V> {
+    private static final CompactMap<Object> EMPTY =
+            new CompactMap<>(new String[0], new Object[0]);
+
+    private final String[] keys;
+    private final Object[] values;
+
+    private CompactMap(String[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> Map<String, V> empty() {
+        return (Map<String, V>) EMPTY;
+    }
+
+    /**
+     * Copies the map, interning the keys.
+     */
+    static <V> Map<String, V> copyOf(Map<String, V> map, StringInterner interner) {
+        if (map == null || map.isEmpty()) {
+            return empty();
+        }
+        String[] keys = new String[map.size()];
+        int i = 0;
+        for (String key : map.keySet()) {
+            keys[i++] = interner.intern(key);
+        }
+        Arrays.sort(keys);
+        Object[] values = new Object[keys.length];
+        for (i = 0; i < keys.length; i++) {
+            values[i] = map.get(keys[i]);
+        }
+        return new CompactMap<>(keys, values);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<Entry<String, V>>() {
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new Iterator<Entry<String, V>>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<String, V> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, V> entry =
+                                new SimpleImmutableEntry<>(keys[next], (V) values[next]);
+                        next++;
+                        return entry;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String) || keys.length == 0) {
+            return -1;
+        }
+        return Arrays.binarySearch(keys, key);
+    }
+}
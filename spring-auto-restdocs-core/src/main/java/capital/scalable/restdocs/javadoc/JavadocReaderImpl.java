@@ -26,14 +26,26 @@ import static org.slf4j.LoggerFactory.getLogger;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 
@@ -42,22 +54,84 @@ public class JavadocReaderImpl implements JavadocReader {
     private static final String PATH_DELIMITER = ",";
     private static final String JAVADOC_JSON_DIR_PROPERTY =
             "org.springframework.restdocs.javadocJsonDir";
+    private static final String JAVADOC_PRELOAD_PROPERTY =
+            "org.springframework.restdocs.javadocPreload";
+    private static final String JSON_EXTENSION = ".json";
+    private static final String SMILE_EXTENSION = ".smile";
+    private static final ConcurrentMap<List<File>, JavadocReaderImpl> sharedReaders =
+            new ConcurrentHashMap<>();
+
+    private static final String COMMENT = "comment";
+    private static final String TAG = "tag";
+    private static final String PARAMETER = "parameter";
+
+    private static final ClassJavadoc NO_JAVADOC =
+            new ClassJavadoc().compact(new StringInterner());
 
     private final Map<String, ClassJavadoc> classCache = new ConcurrentHashMap<>();
-    private final ObjectMapper mapper;
+    private final ConcurrentMap<String, FutureTask<ClassJavadoc>> loading =
+            new ConcurrentHashMap<>();
+    private final AtomicInteger readCount = new AtomicInteger();
+    private final StringInterner interner = new StringInterner();
+    private final Map<Class<?>, String> relativePaths = new ConcurrentHashMap<>();
+    // method comments, tags and parameter comments resolved from the class hierarchy
+    private final Map<CommentKey, String> resolvedComments = new ConcurrentHashMap<>();
+    private final ObjectReader jsonReader;
+    private final ObjectReader smileReader;
     private final List<File> absoluteBaseDirs;
+    private final Map<File, PackedJavadocIndex> packedIndexes;
 
-    private JavadocReaderImpl(ObjectMapper mapper, List<File> absoluteBaseDirs) {
-        this.mapper = mapper;
+    private JavadocReaderImpl(List<File> absoluteBaseDirs) {
+        this.jsonReader = objectMapper(new JsonFactory()).readerFor(ClassJavadoc.class);
+        this.smileReader = objectMapper(new SmileFactory()).readerFor(ClassJavadoc.class);
         this.absoluteBaseDirs = absoluteBaseDirs;
+        this.packedIndexes = openPackedIndexes(absoluteBaseDirs);
     }
 
+    /**
+     * Creates a reader for the directories of the Javadoc JSON directory system property.
+     * If the preload system property is {@code true}, all files of these directories are
+     * read in parallel when the reader is created.
+     */
     public static JavadocReaderImpl createWithSystemProperty() {
+        return create(toAbsoluteDirs(getJsonDirectory()));
+    }
+
+    /**
+     * Returns the reader shared by all callers in this JVM that use the same Javadoc JSON
+     * directories. Parsed Javadoc is cached in the reader and thus only read once per test run.
+     */
+    public static JavadocReaderImpl sharedWithSystemProperty() {
+        return shared(getJsonDirectory());
+    }
+
+    static JavadocReaderImpl shared(String javadocJsonDir) {
+        List<File> absoluteBaseDirs = toAbsoluteDirs(javadocJsonDir);
+        JavadocReaderImpl reader = sharedReaders.get(absoluteBaseDirs);
+        if (reader == null) {
+            JavadocReaderImpl newReader = create(absoluteBaseDirs);
+            reader = sharedReaders.putIfAbsent(absoluteBaseDirs, newReader);
+            if (reader == null) {
+                reader = newReader;
+            }
+        }
+        return reader;
+    }
+
+    private static JavadocReaderImpl create(List<File> absoluteBaseDirs) {
+        JavadocReaderImpl reader = new JavadocReaderImpl(absoluteBaseDirs);
+        if (Boolean.parseBoolean(System.getProperty(JAVADOC_PRELOAD_PROPERTY))) {
+            reader.preload();
+        }
+        return reader;
+    }
+
+    private static String getJsonDirectory() {
         String jsonDir = System.getProperties().getProperty(JAVADOC_JSON_DIR_PROPERTY);
         if (StringUtils.isEmpty(jsonDir)) {
             jsonDir = getDefaultJsonDirectory();
         }
-        return new JavadocReaderImpl(objectMapper(), toAbsoluteDirs(jsonDir));
+        return jsonDir;
     }
 
     private static String getDefaultJsonDirectory() {
@@ -71,7 +145,82 @@ public class JavadocReaderImpl implements JavadocReader {
      * Used for testing.
      */
     static JavadocReaderImpl createWith(String javadocJsonDir) {
-        return new JavadocReaderImpl(objectMapper(), toAbsoluteDirs(javadocJsonDir));
+        return new JavadocReaderImpl(toAbsoluteDirs(javadocJsonDir));
+    }
+
+    /**
+     * Reads all Javadoc files of the configured directories into the cache, in parallel.
+     * <p>
+     * The first file found for a class wins like with lazy loading. Directories starting with
+     * the first one that has a packed index are not preloaded, as the packed index is already
+     * read lazily and would otherwise be shadowed by later directories.
+     * Classes not found here are still read lazily, e.g. from the classpath.
+     */
+    void preload() {
+        long start = System.nanoTime();
+        Map<String, File> files = new HashMap<>();
+        for (File dir : absoluteBaseDirs) {
+            if (packedIndexes.containsKey(dir)) {
+                break;
+            }
+            Map<String, File> dirFiles = new HashMap<>();
+            collectFiles(dir, dir, dirFiles);
+            for (Map.Entry<String, File> entry : dirFiles.entrySet()) {
+                if (!files.containsKey(entry.getKey())) {
+                    files.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(files.size());
+        for (final Map.Entry<String, File> entry : files.entrySet()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    File file = entry.getValue();
+                    ClassJavadoc classJavadoc = readFile(file,
+                            file.getName().endsWith(SMILE_EXTENSION) ? smileReader : jsonReader);
+                    if (classJavadoc != null) {
+                        classCache.put(entry.getKey(), classJavadoc.compact(interner));
+                    }
+                    return null;
+                }
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            pool.invokeAll(tasks);
+        } finally {
+            pool.shutdown();
+        }
+        log.info("Preloaded Javadoc of {} classes in {} ms", classCache.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Collects the Javadoc files by their relative JSON path, preferring JSON over Smile files.
+     */
+    private static void collectFiles(File baseDir, File dir, Map<String, File> files) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectFiles(baseDir, child, files);
+                continue;
+            }
+            String relativePath = child.getPath().substring(baseDir.getPath().length() + 1);
+            if (relativePath.endsWith(JSON_EXTENSION)) {
+                files.put(relativePath, child);
+            } else if (relativePath.endsWith(SMILE_EXTENSION)) {
+                String jsonPath = relativePath.substring(0,
+                        relativePath.length() - SMILE_EXTENSION.length()) + JSON_EXTENSION;
+                if (!files.containsKey(jsonPath)) {
+                    files.put(jsonPath, child);
+                }
+            }
+        }
     }
 
     @Override
@@ -86,87 +235,208 @@ public class JavadocReaderImpl implements JavadocReader {
 
     @Override
     public String resolveMethodComment(Class<?> javaBaseClass, final String javaMethodName) {
-        return resolveCommentFromClassHierarchy(javaBaseClass, new CommentExtractor() {
+        CommentKey key = new CommentKey(javaBaseClass, javaMethodName, COMMENT, null);
+        String resolved = resolvedComments.get(key);
+        if (resolved != null) {
+            return resolved;
+        }
+        return cache(key, resolveCommentFromClassHierarchy(javaBaseClass, new CommentExtractor() {
             @Override
             public String comment(ClassJavadoc classJavadoc) {
                 return classJavadoc.getMethodComment(javaMethodName);
             }
-        });
+        }));
     }
 
     @Override
     public String resolveMethodTag(Class<?> javaBaseClass, final String javaMethodName,
             final String tagName) {
-        return resolveCommentFromClassHierarchy(javaBaseClass, new CommentExtractor() {
+        CommentKey key = new CommentKey(javaBaseClass, javaMethodName, TAG, tagName);
+        String resolved = resolvedComments.get(key);
+        if (resolved != null) {
+            return resolved;
+        }
+        return cache(key, resolveCommentFromClassHierarchy(javaBaseClass, new CommentExtractor() {
             @Override
             public String comment(ClassJavadoc classJavadoc) {
                 return classJavadoc.getMethodTag(javaMethodName, tagName);
             }
-        });
+        }));
     }
 
     @Override
     public String resolveMethodParameterComment(Class<?> javaBaseClass, final String javaMethodName,
             final String javaParameterName) {
-        return resolveCommentFromClassHierarchy(javaBaseClass, new CommentExtractor() {
+        CommentKey key = new CommentKey(javaBaseClass, javaMethodName, PARAMETER,
+                javaParameterName);
+        String resolved = resolvedComments.get(key);
+        if (resolved != null) {
+            return resolved;
+        }
+        return cache(key, resolveCommentFromClassHierarchy(javaBaseClass, new CommentExtractor() {
             @Override
             public String comment(ClassJavadoc classJavadoc) {
                 return classJavadoc.getMethodParameterComment(javaMethodName, javaParameterName);
             }
-        });
+        }));
+    }
+
+    private String cache(CommentKey key, String comment) {
+        resolvedComments.put(key, comment);
+        return comment;
     }
 
     private ClassJavadoc classJavadoc(Class<?> clazz) {
-        String relativePath = classToRelativePath(clazz);
+        String relativePath = relativePaths.get(clazz);
+        if (relativePath == null) {
+            relativePath = classToRelativePath(clazz);
+            relativePaths.put(clazz, relativePath);
+        }
         ClassJavadoc classJavadocFromCache = classCache.get(relativePath);
         if (classJavadocFromCache != null) {
             return classJavadocFromCache;
-        } else {
-            ClassJavadoc classJavadoc = readFiles(clazz, relativePath);
-            classCache.put(relativePath, classJavadoc);
-            return classJavadoc;
         }
+        return load(clazz, relativePath);
+    }
+
+    /**
+     * Reads the Javadoc of the class at most once, even if several threads request it at the
+     * same time. Other threads wait for the reading thread, no lock is held while reading.
+     */
+    private ClassJavadoc load(final Class<?> clazz, final String relativePath) {
+        FutureTask<ClassJavadoc> load = new FutureTask<>(new Callable<ClassJavadoc>() {
+            @Override
+            public ClassJavadoc call() {
+                // might have been loaded since the cache was checked
+                ClassJavadoc cached = classCache.get(relativePath);
+                if (cached != null) {
+                    return cached;
+                }
+                ClassJavadoc classJavadoc = readFiles(clazz, relativePath);
+                classCache.put(relativePath, classJavadoc);
+                return classJavadoc;
+            }
+        });
+        FutureTask<ClassJavadoc> inFlight = loading.putIfAbsent(relativePath, load);
+        if (inFlight == null) {
+            inFlight = load;
+            try {
+                load.run();
+            } finally {
+                loading.remove(relativePath, load);
+            }
+        }
+        try {
+            return inFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return readFiles(clazz, relativePath);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Used for testing.
+     */
+    int getReadCount() {
+        return readCount.get();
     }
 
     private String classToRelativePath(Class<?> clazz) {
         String packageName = clazz.getPackage().getName();
         String packageDir = packageName.replace(".", File.separator);
-        String className = clazz.getCanonicalName().replaceAll(packageName + "\\.?", "");
-        return new File(packageDir, className + ".json").getPath();
+        String canonicalName = clazz.getCanonicalName();
+        String className = packageName.isEmpty()
+                ? canonicalName : canonicalName.substring(packageName.length() + 1);
+        return new File(packageDir, className + JSON_EXTENSION).getPath();
     }
 
     private ClassJavadoc readFiles(Class<?> clazz, String relativePath) {
+        readCount.incrementAndGet();
+        return findClassJavadoc(clazz, relativePath).compact(interner);
+    }
+
+    private ClassJavadoc findClassJavadoc(Class<?> clazz, String relativePath) {
+        String smileRelativePath = toSmilePath(relativePath);
         if (absoluteBaseDirs.isEmpty()) {
             // No absolute directory is configured and thus we try to find the file relative.
-            ClassJavadoc classJavadoc = readJson(new File(relativePath));
+            ClassJavadoc classJavadoc = readFile(new File(relativePath), jsonReader);
+            if (classJavadoc == null) {
+                classJavadoc = readFile(new File(smileRelativePath), smileReader);
+            }
             if (classJavadoc != null) {
                 return classJavadoc;
             }
         } else {
-            // Try to find the file in all configured directories.
+            // Try to find the class in all configured directories,
+            // in the packed index first if there is one.
             for (File dir : absoluteBaseDirs) {
-                ClassJavadoc classJavadoc = readJson(new File(dir, relativePath));
+                ClassJavadoc classJavadoc = readPacked(packedIndexes.get(dir), clazz);
+                if (classJavadoc != null) {
+                    return classJavadoc;
+                }
+                classJavadoc = readFile(new File(dir, relativePath), jsonReader);
+                if (classJavadoc == null) {
+                    classJavadoc = readFile(new File(dir, smileRelativePath), smileReader);
+                }
                 if (classJavadoc != null) {
                     return classJavadoc;
                 }
             }
         }
 
-        // might be in some jar on the classpath
+        // might be in some jar on the classpath, indexed if the jar contains the marker
+        ClassJavadoc classJavadoc = readIndexed(relativePath, jsonReader);
+        if (classJavadoc == null) {
+            classJavadoc = readIndexed(smileRelativePath, smileReader);
+        }
+        if (classJavadoc != null) {
+            return classJavadoc;
+        }
         URL url = getClass().getClassLoader().getResource(relativePath);
         if (url != null) {
-            return readJson(url);
+            return readUrl(url, jsonReader);
+        }
+        url = getClass().getClassLoader().getResource(smileRelativePath);
+        if (url != null) {
+            return readUrl(url, smileReader);
         }
 
         log.warn("No Javadoc found for class {}", clazz.getCanonicalName());
-        return new ClassJavadoc();
+        // cached like found Javadoc, so that missing classes are only looked up once
+        return NO_JAVADOC;
+    }
+
+    private ClassJavadoc readIndexed(String relativePath, ObjectReader reader) {
+        try (InputStream docSource = ClasspathJavadocIndex.get().open(relativePath)) {
+            if (docSource != null) {
+                return reader.readValue(docSource);
+            }
+        } catch (IOException e) {
+            log.error("Failed to read indexed file {}", relativePath, e);
+        }
+        return null;
+    }
+
+    private ClassJavadoc readPacked(PackedJavadocIndex index, Class<?> clazz) {
+        if (index == null) {
+            return null;
+        }
+        try {
+            return index.read(clazz.getCanonicalName(), jsonReader, smileReader);
+        } catch (IOException e) {
+            log.error("Failed to read class {} from packed index", clazz.getCanonicalName(), e);
+        }
+        return null;
     }
 
-    private ClassJavadoc readJson(File docSource) {
+    private ClassJavadoc readFile(File docSource, ObjectReader reader) {
         try {
-            return mapper
-                    .readerFor(ClassJavadoc.class)
-                    .readValue(docSource);
+            return reader.readValue(docSource);
         } catch (FileNotFoundException e) {
             // Ignored as we might try more than one file and we warn if no Javadoc file
             // is found at the end.
@@ -176,19 +446,22 @@ public class JavadocReaderImpl implements JavadocReader {
         return null;
     }
 
-    private ClassJavadoc readJson(URL docSource) {
+    private ClassJavadoc readUrl(URL docSource, ObjectReader reader) {
         try {
-            return mapper
-                    .readerFor(ClassJavadoc.class)
-                    .readValue(docSource);
+            return reader.readValue(docSource);
         } catch (IOException e) {
             log.error("Failed to read url {}", docSource, e);
         }
         return null;
     }
 
-    private static ObjectMapper objectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
+    private static String toSmilePath(String jsonPath) {
+        return jsonPath.substring(0, jsonPath.length() - JSON_EXTENSION.length())
+                + SMILE_EXTENSION;
+    }
+
+    static ObjectMapper objectMapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
         mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker()
                 .withFieldVisibility(JsonAutoDetect.Visibility.ANY)
                 .withGetterVisibility(JsonAutoDetect.Visibility.NONE)
@@ -197,6 +470,21 @@ public class JavadocReaderImpl implements JavadocReader {
         return mapper;
     }
 
+    private static Map<File, PackedJavadocIndex> openPackedIndexes(List<File> dirs) {
+        Map<File, PackedJavadocIndex> indexes = new HashMap<>();
+        for (File dir : dirs) {
+            File file = new File(dir, PackedJavadocIndex.FILE_NAME);
+            if (file.isFile()) {
+                try {
+                    indexes.put(dir, PackedJavadocIndex.open(file));
+                } catch (IOException e) {
+                    log.error("Failed to open packed index {}", file, e);
+                }
+            }
+        }
+        return indexes;
+    }
+
     private static List<File> toAbsoluteDirs(String javadocJsonDirs) {
         List<File> absoluteDirs = new ArrayList<>();
         if (isNotBlank(javadocJsonDirs)) {
@@ -252,4 +540,43 @@ public class JavadocReaderImpl implements JavadocReader {
     private interface CommentExtractor {
         String comment(ClassJavadoc classJavadoc);
     }
+
+    private static final class CommentKey {
+        private final Class<?> javaBaseClass;
+        private final String javaMethodName;
+        private final String kind;
+        private final String name;
+
+        private CommentKey(Class<?> javaBaseClass, String javaMethodName, String kind,
+                String name) {
+            this.javaBaseClass = javaBaseClass;
+            this.javaMethodName = javaMethodName;
+            this.kind = kind;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CommentKey)) {
+                return false;
+            }
+            CommentKey that = (CommentKey) o;
+            return javaBaseClass.equals(that.javaBaseClass)
+                    && javaMethodName.equals(that.javaMethodName)
+                    && kind.equals(that.kind)
+                    && (name == null ? that.name == null : name.equals(that.name));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = javaBaseClass.hashCode();
+            result = 31 * result + javaMethodName.hashCode();
+            result = 31 * result + kind.hashCode();
+            result = 31 * result + (name != null ? name.hashCode() : 0);
+            return result;
+        }
+    }
 }
@@ -19,18 +19,24 @@
  */
 package capital.scalable.restdocs.javadoc;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import capital.scalable.restdocs.util.TemplateFormatting;
 
 public class JavadocUtil {
     private static String FORCED_LB = "__FLB__";
     private static String LB = "__LB__";
+    // tags which are converted or kept, all other text is escaped
+    private static final Pattern TAG = Pattern.compile(
+            "</?(?:br|p|ul|li|b|i|code)\\s*/?>|</a>|<a\\s+href\\s*=\\s*[\"\']([^\"\']*)[\"\']\\s*>");
 
     private JavadocUtil() {
         // util
     }
 
     public static String convertFromJavadoc(String javadoc, TemplateFormatting templateFormatting) {
-        String converted = javadoc
+        String converted = escapeText(javadoc, templateFormatting)
                 // line breaks in javadoc are ignored
                 .replace("\n", "")
                 // will be replaced with forced line break
@@ -44,9 +50,9 @@ public class JavadocUtil {
                 .replace("<li>", LB + "- ")
                 .replace("</li>", "")
                 .replace("<b>", templateFormatting.getBold())
-                .replace("</b>", templateFormatting.getBold())
+                .replace("</b>", templateFormatting.getBoldEnd())
                 .replace("<i>", templateFormatting.getItalics())
-                .replace("</i>", templateFormatting.getItalics())
+                .replace("</i>", templateFormatting.getItalicsEnd())
                 .replaceAll("<a\\s+href\\s*=\\s*[\"\'](.*?)[\"\']\\s*>(.*?)</a>",
                         templateFormatting.link());
 
@@ -55,10 +61,28 @@ public class JavadocUtil {
         }
 
         String res = trimAndFixLineBreak(converted, FORCED_LB, templateFormatting.getLineBreak());
-        res = trimAndFixLineBreak(res, LB, "\n");
+        res = trimAndFixLineBreak(res, LB, templateFormatting.getNewLine());
         return res;
     }
 
+    private static String escapeText(String javadoc, TemplateFormatting templateFormatting) {
+        StringBuilder res = new StringBuilder();
+        Matcher tag = TAG.matcher(javadoc);
+        int end = 0;
+        while (tag.find()) {
+            res.append(templateFormatting.escapeHtmlText(javadoc.substring(end, tag.start())));
+            if (tag.group(1) != null) {
+                res.append("<a href=\"").append(templateFormatting.escapeHtmlText(tag.group(1)))
+                        .append("\">");
+            } else {
+                res.append(tag.group());
+            }
+            end = tag.end();
+        }
+        res.append(templateFormatting.escapeHtmlText(javadoc.substring(end)));
+        return res.toString();
+    }
+
     private static String trimAndFixLineBreak(String text, String separator, String newSeparator) {
         StringBuilder res = new StringBuilder();
         for (String line : text.split(separator)) {
@@ -0,0 +1,108 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.javadoc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+
+/**
+ * Memory-mapped packed index written by the JSON doclet with the {@code -packed} option.
+ * <p>
+ * Only the header with the class table is read when the index is opened.
+ * The Javadoc of a class is decoded when it is requested.
+ */
+class PackedJavadocIndex {
+    static final String FILE_NAME = "javadoc-json.pack";
+    private static final int MAGIC = 0x53415244;
+    private static final int VERSION = 1;
+
+    private final MappedByteBuffer buffer;
+    private final Map<String, int[]> entries;
+    private final int dataStart;
+
+    private PackedJavadocIndex(MappedByteBuffer buffer, Map<String, int[]> entries,
+            int dataStart) {
+        this.buffer = buffer;
+        this.entries = entries;
+        this.dataStart = dataStart;
+    }
+
+    static PackedJavadocIndex open(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a packed Javadoc index: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported packed Javadoc index version " + version
+                    + ": " + file);
+        }
+        int count = buffer.getInt();
+        Map<String, int[]> entries = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            entries.put(new String(name, UTF_8), new int[]{buffer.getInt(), buffer.getInt()});
+        }
+        return new PackedJavadocIndex(buffer, entries, buffer.position());
+    }
+
+    /**
+     * Decodes the Javadoc of the given class or returns null if it is not in the index.
+     * Documents starting with the Smile header are decoded as Smile, all others as JSON.
+     */
+    ClassJavadoc read(String className, ObjectReader jsonReader, ObjectReader smileReader)
+            throws IOException {
+        int[] entry = entries.get(className);
+        if (entry == null) {
+            return null;
+        }
+        ByteBuffer document = buffer.duplicate();
+        document.position(dataStart + entry[0]);
+        document.limit(dataStart + entry[0] + entry[1]);
+        ObjectReader reader = isSmile(document) ? smileReader : jsonReader;
+        return reader.readValue(new ByteBufferBackedInputStream(document));
+    }
+
+    private static boolean isSmile(ByteBuffer document) {
+        int position = document.position();
+        return document.remaining() >= 3
+                && document.get(position) == SmileConstants.HEADER_BYTE_1
+                && document.get(position + 1) == SmileConstants.HEADER_BYTE_2
+                && document.get(position + 2) == SmileConstants.HEADER_BYTE_3;
+    }
+}
@@ -19,18 +19,21 @@
  */
 package capital.scalable.restdocs.misc;
 
+import static capital.scalable.restdocs.OperationAttributeHelper.determineTemplateFormatting;
 import static capital.scalable.restdocs.OperationAttributeHelper.getAuthorization;
 import static capital.scalable.restdocs.OperationAttributeHelper.setAuthorization;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import capital.scalable.restdocs.bundle.BundleSupport;
 import capital.scalable.restdocs.section.SectionSupport;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.restdocs.operation.Operation;
 import org.springframework.restdocs.snippet.TemplatedSnippet;
 
-public class AuthorizationSnippet extends TemplatedSnippet implements SectionSupport {
+public class AuthorizationSnippet extends TemplatedSnippet implements SectionSupport,
+        BundleSupport {
 
     public static final String AUTHORIZATION = "auto-authorization";
 
@@ -44,10 +47,16 @@ public class AuthorizationSnippet extends TemplatedSnippet implements SectionSup
     @Override
     protected Map<String, Object> createModel(Operation operation) {
         Map<String, Object> model = new HashMap<>();
-        model.put("authorization", authorizationDescription(operation));
+        model.put("authorization", determineTemplateFormatting(operation)
+                .escape(authorizationDescription(operation)));
         return model;
     }
 
+    @Override
+    public Map<String, Object> createBundleModel(Operation operation) {
+        return createModel(operation);
+    }
+
     private String authorizationDescription(Operation operation) {
         String requestAuthorization = getAuthorization(operation);
         if (requestAuthorization != null) {
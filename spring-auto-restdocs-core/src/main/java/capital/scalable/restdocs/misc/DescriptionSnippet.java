@@ -32,12 +32,13 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import java.util.HashMap;
 import java.util.Map;
 
+import capital.scalable.restdocs.bundle.BundleSupport;
 import capital.scalable.restdocs.javadoc.JavadocReader;
 import org.springframework.restdocs.operation.Operation;
 import org.springframework.restdocs.snippet.TemplatedSnippet;
 import org.springframework.web.method.HandlerMethod;
 
-public class DescriptionSnippet extends TemplatedSnippet {
+public class DescriptionSnippet extends TemplatedSnippet implements BundleSupport {
 
     public static final String DESCRIPTION = "auto-description";
 
@@ -65,6 +66,11 @@ public class DescriptionSnippet extends TemplatedSnippet {
         return model;
     }
 
+    @Override
+    public Map<String, Object> createBundleModel(Operation operation) {
+        return createModel(operation);
+    }
+
     private String resolveDeprecated(HandlerMethod handlerMethod, JavadocReader javadocReader) {
         boolean isDeprecated = handlerMethod.getMethod().getAnnotation(Deprecated.class) != null;
         String deprecatedDoc = javadocReader.resolveMethodTag(handlerMethod.getBeanType(),
@@ -19,16 +19,19 @@
  */
 package capital.scalable.restdocs.misc;
 
+import static capital.scalable.restdocs.OperationAttributeHelper.determineTemplateFormatting;
 import static capital.scalable.restdocs.OperationAttributeHelper.getRequestMethod;
 import static capital.scalable.restdocs.OperationAttributeHelper.getRequestPattern;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import capital.scalable.restdocs.bundle.BundleSupport;
+import capital.scalable.restdocs.util.TemplateFormatting;
 import org.springframework.restdocs.operation.Operation;
 import org.springframework.restdocs.snippet.TemplatedSnippet;
 
-public class MethodAndPathSnippet extends TemplatedSnippet {
+public class MethodAndPathSnippet extends TemplatedSnippet implements BundleSupport {
 
     public static final String METHOD_PATH = "auto-method-path";
 
@@ -38,12 +41,18 @@ public class MethodAndPathSnippet extends TemplatedSnippet {
 
     @Override
     protected Map<String, Object> createModel(Operation operation) {
+        TemplateFormatting templateFormatting = determineTemplateFormatting(operation);
         Map<String, Object> model = new HashMap<>();
         model.put("method", getRequestMethod(operation));
-        model.put("path", nullToEmpty(getRequestPattern(operation)));
+        model.put("path", templateFormatting.escape(nullToEmpty(getRequestPattern(operation))));
         return model;
     }
 
+    @Override
+    public Map<String, Object> createBundleModel(Operation operation) {
+        return createModel(operation);
+    }
+
     private String nullToEmpty(String s) {
         if (s == null) {
             return "";
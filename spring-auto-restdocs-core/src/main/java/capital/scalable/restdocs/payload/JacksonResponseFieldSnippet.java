@@ -110,6 +110,7 @@ public class JacksonResponseFieldSnippet extends AbstractJacksonFieldSnippet {
                 "th-description",
                 "pagination-response-adoc",
                 "pagination-response-md",
+                "pagination-response-confluence",
                 "no-response-body"
         };
     }
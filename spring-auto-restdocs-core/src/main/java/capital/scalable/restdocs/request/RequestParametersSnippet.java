@@ -121,6 +121,7 @@ public class RequestParametersSnippet extends AbstractParameterSnippet<RequestPa
                 "th-description",
                 "pagination-request-adoc",
                 "pagination-request-md",
+                "pagination-request-confluence",
                 "no-params"
         };
     }
@@ -19,11 +19,15 @@
  */
 package capital.scalable.restdocs.section;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+import capital.scalable.restdocs.AutoDocumentation;
 import capital.scalable.restdocs.SnippetRegistry;
+import capital.scalable.restdocs.bundle.BundleSnippet;
+import org.springframework.restdocs.snippet.Snippet;
 
 /**
  * Builder for configuring a section snippet.
@@ -42,6 +46,7 @@ public class SectionBuilder {
 
     private Collection<String> snippetNames = DEFAULT_SNIPPETS;
     private boolean skipEmpty = false;
+    private List<Snippet> snippets = new ArrayList<>();
 
     public SectionBuilder() {
     }
@@ -83,7 +88,59 @@ public class SectionBuilder {
         return this;
     }
 
+    /**
+     * Snippet instances the bundle takes its sections from, e.g. a configured
+     * {@link AutoDocumentation#authorization(String)}. Other sections of the bundle use
+     * snippets created with their defaults, so they do not have to be registered.
+     *
+     * @param snippets snippets of the bundle
+     * @return this
+     */
+    public SectionBuilder snippets(Snippet... snippets) {
+        this.snippets = Arrays.asList(snippets);
+        return this;
+    }
+
     public SectionSnippet build() {
         return new SectionSnippet(snippetNames, skipEmpty);
     }
+
+    /**
+     * Bundle snippet containing the same sections as the section snippet.
+     * <p>
+     * The bundle creates the models of its sections from its own snippet instances, so the
+     * individual snippets do not have to be registered. Sections without a bundle snippet,
+     * e.g. the authorization which has no default, are taken from the registered snippets.
+     *
+     * @return bundle snippet
+     */
+    public BundleSnippet buildBundle() {
+        List<Snippet> bundleSnippets = new ArrayList<>(snippets);
+        for (String snippetName : snippetNames) {
+            if (SectionSnippet.findSectionSnippet(bundleSnippets, snippetName) == null) {
+                Snippet snippet = createSnippet(snippetName);
+                if (snippet != null) {
+                    bundleSnippets.add(snippet);
+                }
+            }
+        }
+        return new BundleSnippet(new SectionSnippet(snippetNames, skipEmpty, bundleSnippets));
+    }
+
+    private static Snippet createSnippet(String snippetName) {
+        switch (snippetName) {
+            case SnippetRegistry.PATH_PARAMETERS:
+                return AutoDocumentation.pathParameters();
+            case SnippetRegistry.REQUEST_HEADERS:
+                return AutoDocumentation.requestHeaders();
+            case SnippetRegistry.REQUEST_PARAMETERS:
+                return AutoDocumentation.requestParameters();
+            case SnippetRegistry.REQUEST_FIELDS:
+                return AutoDocumentation.requestFields();
+            case SnippetRegistry.RESPONSE_FIELDS:
+                return AutoDocumentation.responseFields();
+            default:
+                return null;
+        }
+    }
 }
@@ -19,6 +19,7 @@
  */
 package capital.scalable.restdocs.section;
 
+import static capital.scalable.restdocs.OperationAttributeHelper.determineTemplateFormatting;
 import static capital.scalable.restdocs.OperationAttributeHelper.getDefaultSnippets;
 import static capital.scalable.restdocs.OperationAttributeHelper.getDocumentationContext;
 import static capital.scalable.restdocs.OperationAttributeHelper.getHandlerMethod;
@@ -34,11 +35,14 @@ import static org.springframework.util.StringUtils.capitalize;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import capital.scalable.restdocs.SnippetRegistry;
+import capital.scalable.restdocs.bundle.BundleSupport;
 import capital.scalable.restdocs.javadoc.JavadocReader;
 import org.slf4j.Logger;
 import org.springframework.restdocs.operation.Operation;
@@ -48,7 +52,7 @@ import org.springframework.restdocs.snippet.TemplatedSnippet;
 import org.springframework.util.PropertyPlaceholderHelper;
 import org.springframework.web.method.HandlerMethod;
 
-public class SectionSnippet extends TemplatedSnippet {
+public class SectionSnippet extends TemplatedSnippet implements BundleSupport {
     private static final Logger log = getLogger(SectionSnippet.class);
 
     public static final String SECTION = "auto-section";
@@ -61,11 +65,22 @@ public class SectionSnippet extends TemplatedSnippet {
 
     private final Collection<String> sectionNames;
     private final boolean skipEmpty;
+    private final Collection<Snippet> snippets;
 
     public SectionSnippet(Collection<String> sectionNames, boolean skipEmpty) {
+        this(sectionNames, skipEmpty, Collections.<Snippet>emptyList());
+    }
+
+    /**
+     * @param snippets snippets the sections are taken from before the snippets registered
+     *                 for the operation
+     */
+    public SectionSnippet(Collection<String> sectionNames, boolean skipEmpty,
+            Collection<Snippet> snippets) {
         super(SECTION, null);
         this.sectionNames = sectionNames;
         this.skipEmpty = skipEmpty;
+        this.snippets = snippets;
     }
 
     @Override
@@ -80,7 +95,7 @@ public class SectionSnippet extends TemplatedSnippet {
         JavadocReader javadocReader = getJavadocReader(operation);
         String title = resolveTitle(handlerMethod, javadocReader);
 
-        model.put("title", title);
+        model.put("title", determineTemplateFormatting(operation).escapeHtmlText(title));
         model.put("sections", createSections(operation));
 
         createSections(operation);
@@ -88,6 +103,28 @@ public class SectionSnippet extends TemplatedSnippet {
         return model;
     }
 
+    /**
+     * Section model where each section also contains the bundle model of its snippet,
+     * if the snippet supports bundles.
+     */
+    @Override
+    public Map<String, Object> createBundleModel(Operation operation) {
+        Map<String, Object> model = createModel(operation);
+        List<Map<String, Object>> sections = new ArrayList<>();
+        for (Section section : (List<Section>) model.get("sections")) {
+            Map<String, Object> bundleSection = new LinkedHashMap<>();
+            bundleSection.put("name", section.fileName);
+            bundleSection.put("header", section.header);
+            SectionSupport snippet = getSectionSnippet(operation, section.fileName);
+            if (snippet instanceof BundleSupport) {
+                bundleSection.put("model", ((BundleSupport) snippet).createBundleModel(operation));
+            }
+            sections.add(bundleSection);
+        }
+        model.put("sections", sections);
+        return model;
+    }
+
     private List<Section> createSections(Operation operation) {
         List<Section> sections = new ArrayList<>();
         for (String sectionName : sectionNames) {
@@ -139,7 +176,22 @@ public class SectionSnippet extends TemplatedSnippet {
     }
 
     private SectionSupport getSectionSnippet(Operation operation, String snippetName) {
-        for (Snippet snippet : getDefaultSnippets(operation)) {
+        SectionSupport sectionSnippet = findSectionSnippet(snippets, snippetName);
+        if (sectionSnippet == null) {
+            sectionSnippet = findSectionSnippet(getDefaultSnippets(operation), snippetName);
+        }
+        if (sectionSnippet != null) {
+            return sectionSnippet;
+        }
+
+        return SnippetRegistry.getClassicSnippet(snippetName);
+    }
+
+    static SectionSupport findSectionSnippet(Collection<Snippet> snippets, String snippetName) {
+        if (snippets == null) {
+            return null;
+        }
+        for (Snippet snippet : snippets) {
             if (snippet instanceof SectionSupport) {
                 SectionSupport sectionSnippet = (SectionSupport) snippet;
                 if (snippetName.equals(sectionSnippet.getFileName())) {
@@ -147,8 +199,7 @@ public class SectionSnippet extends TemplatedSnippet {
                 }
             }
         }
-
-        return SnippetRegistry.getClassicSnippet(snippetName);
+        return null;
     }
 
     private String delimit(String value) {
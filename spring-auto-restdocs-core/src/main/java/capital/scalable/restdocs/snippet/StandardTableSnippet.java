@@ -38,6 +38,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import capital.scalable.restdocs.bundle.BundleSupport;
 import capital.scalable.restdocs.util.TemplateFormatting;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.restdocs.operation.Operation;
@@ -45,7 +46,7 @@ import org.springframework.restdocs.payload.FieldDescriptor;
 import org.springframework.restdocs.snippet.TemplatedSnippet;
 import org.springframework.web.method.HandlerMethod;
 
-public abstract class StandardTableSnippet extends TemplatedSnippet {
+public abstract class StandardTableSnippet extends TemplatedSnippet implements BundleSupport {
 
     protected StandardTableSnippet(String snippetName, Map<String, Object> attributes) {
         super(snippetName, attributes);
@@ -65,6 +66,11 @@ public abstract class StandardTableSnippet extends TemplatedSnippet {
         return createModel(handlerMethod, model, fieldDescriptors, templateFormatting);
     }
 
+    @Override
+    public Map<String, Object> createBundleModel(Operation operation) {
+        return createModel(operation);
+    }
+
     protected abstract Collection<FieldDescriptor> createFieldDescriptors(Operation operation,
             HandlerMethod handlerMethod);
 
@@ -102,8 +108,8 @@ public abstract class StandardTableSnippet extends TemplatedSnippet {
 
     protected Map<String, Object> createModelForDescriptor(FieldDescriptor descriptor,
             TemplateFormatting templateFormatting) {
-        String path = descriptor.getPath();
-        String type = toString(descriptor.getType());
+        String path = templateFormatting.escape(descriptor.getPath());
+        String type = templateFormatting.escape(toString(descriptor.getType()));
         String methodComment = resolveComment(descriptor);
         String deprecatedComment = resolveDeprecated(descriptor);
         String completeComment = join("<p>", deprecatedComment, methodComment);
@@ -111,7 +117,7 @@ public abstract class StandardTableSnippet extends TemplatedSnippet {
 
         String optional = resolveOptional(descriptor, templateFormatting);
         List<String> constraints = resolveConstraints(descriptor);
-        final String defaultValue = resolveDefaultValue(descriptor);
+        final String defaultValue = templateFormatting.escape(resolveDefaultValue(descriptor));
         description = joinAndFormat(description, constraints, defaultValue, templateFormatting);
 
         Map<String, Object> model = new HashMap<>();
@@ -122,9 +128,11 @@ public abstract class StandardTableSnippet extends TemplatedSnippet {
         return model;
     }
 
-    private String defaultValuePrefix(final String description) {
+    private String defaultValuePrefix(final String description,
+            TemplateFormatting templateFormatting) {
         // if we have no description, we don't want to add new lines
-        return StringUtils.isEmpty(description) ? StringUtils.EMPTY : "\n\n";
+        return StringUtils.isEmpty(description) ? StringUtils.EMPTY
+                : templateFormatting.getNewLine() + templateFormatting.getNewLine();
     }
 
     private List<String> resolveConstraints(FieldDescriptor descriptor) {
@@ -134,9 +142,13 @@ public abstract class StandardTableSnippet extends TemplatedSnippet {
 
     private String resolveOptional(FieldDescriptor descriptor,
             TemplateFormatting templateFormatting) {
-        List<String> optionalMessages = (List<String>) descriptor.getAttributes()
+        List<Object> optionalMessages = (List<Object>) descriptor.getAttributes()
                 .get(OPTIONAL_ATTRIBUTE);
-        return "" + join(templateFormatting.getLineBreak(), optionalMessages.toArray());
+        List<String> escaped = new ArrayList<>();
+        for (Object message : optionalMessages) {
+            escaped.add(message == null ? null : templateFormatting.escape(message.toString()));
+        }
+        return "" + join(templateFormatting.getLineBreak(), escaped.toArray());
     }
 
     private String resolveComment(FieldDescriptor descriptor) {
@@ -176,29 +188,30 @@ public abstract class StandardTableSnippet extends TemplatedSnippet {
             res.append('.');
         }
 
-        StringBuilder constr = formatConstraints(constraints, templateFormatting.getLineBreak());
+        StringBuilder constr = formatConstraints(constraints, templateFormatting);
         if (res.length() > 0 && constr.length() > 0) {
-            res.append("\n\n");
+            res.append(templateFormatting.getNewLine()).append(templateFormatting.getNewLine());
         }
 
         res.append(constr.toString());
         if (StringUtils.isNotEmpty(defaultValue)) {
-            res.append(defaultValuePrefix(description)).append(defaultValue);
+            res.append(defaultValuePrefix(description, templateFormatting)).append(defaultValue);
         }
 
-        return res.toString().replace("|", "\\|");
+        return res.toString().replace("|", templateFormatting.getPipe());
     }
 
-    private StringBuilder formatConstraints(List<String> constraints, String forcedLineBreak) {
+    private StringBuilder formatConstraints(List<String> constraints,
+            TemplateFormatting templateFormatting) {
         StringBuilder res = new StringBuilder();
         for (String constraint : constraints) {
             if (constraint.trim().isEmpty()) {
                 continue;
             }
             if (res.length() > 0) {
-                res.append(forcedLineBreak);
+                res.append(templateFormatting.getLineBreak());
             }
-            res.append(constraint.trim());
+            res.append(templateFormatting.escape(constraint.trim()));
             if (!constraint.endsWith(".")) {
                 res.append('.');
             }
@@ -0,0 +1,134 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.restdocs.templates.StandardTemplateResourceResolver;
+import org.springframework.restdocs.templates.Template;
+import org.springframework.restdocs.templates.TemplateEngine;
+import org.springframework.restdocs.templates.TemplateFormat;
+import org.springframework.restdocs.templates.mustache.MustacheTemplateEngine;
+
+/**
+ * Template formats provided in addition to Spring REST Docs'
+ * {@link org.springframework.restdocs.templates.TemplateFormats}.
+ */
+public abstract class AutoTemplateFormats {
+
+    private static final TemplateFormat CONFLUENCE = new AutoTemplateFormat("confluence", "xhtml");
+
+    private AutoTemplateFormats() {
+        // util
+    }
+
+    /**
+     * Confluence storage format: snippets are XHTML fragments with Confluence macros,
+     * which can be assembled into Confluence pages without rendering Asciidoctor or Markdown.
+     *
+     * @return the Confluence storage template format
+     */
+    public static TemplateFormat confluence() {
+        return CONFLUENCE;
+    }
+
+    /**
+     * Template engine for the {@link #confluence()} format.
+     * <p>
+     * Example requests and responses are written into CDATA sections of code macros.
+     * Content containing {@code ]]>} would end the section early, so the engine splits it
+     * over two sections. Texts of Auto REST Docs snippets are XML-escaped and never contain it.
+     *
+     * @return template engine to be configured together with the Confluence template format
+     */
+    public static TemplateEngine confluenceTemplateEngine() {
+        return new CdataTemplateEngine(new MustacheTemplateEngine(
+                new StandardTemplateResourceResolver(CONFLUENCE)));
+    }
+
+    private static final class CdataTemplateEngine implements TemplateEngine {
+        private final TemplateEngine delegate;
+
+        private CdataTemplateEngine(TemplateEngine delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Template compileTemplate(String name) throws IOException {
+            final Template template = delegate.compileTemplate(name);
+            return new Template() {
+                @Override
+                public String render(Map<String, Object> context) {
+                    return template.render(guardMap(context));
+                }
+            };
+        }
+
+        private static Map<String, Object> guardMap(Map<String, ?> model) {
+            Map<String, Object> guarded = new LinkedHashMap<>();
+            for (Map.Entry<String, ?> entry : model.entrySet()) {
+                guarded.put(entry.getKey(), guard(entry.getValue()));
+            }
+            return guarded;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Object guard(Object value) {
+            if (value instanceof String) {
+                return ((String) value).replace("]]>", "]]]]><![CDATA[>");
+            } else if (value instanceof Map) {
+                return guardMap((Map<String, ?>) value);
+            } else if (value instanceof Collection) {
+                List<Object> guarded = new ArrayList<>();
+                for (Object item : (Collection<?>) value) {
+                    guarded.add(guard(item));
+                }
+                return guarded;
+            } else {
+                return value;
+            }
+        }
+    }
+
+    private static final class AutoTemplateFormat implements TemplateFormat {
+        private final String id;
+        private final String fileExtension;
+
+        private AutoTemplateFormat(String id, String fileExtension) {
+            this.id = id;
+            this.fileExtension = fileExtension;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getFileExtension() {
+            return fileExtension;
+        }
+    }
+}
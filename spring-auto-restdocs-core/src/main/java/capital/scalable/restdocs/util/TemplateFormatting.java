@@ -19,47 +19,142 @@
  */
 package capital.scalable.restdocs.util;
 
+import java.util.regex.Pattern;
+
 public class TemplateFormatting {
     private static final String LINE_BREAK_ADOC = " +\n";
     private static final String LINE_BREAK_MD = "<br>";
+    private static final String LINE_BREAK_CONFLUENCE = "<br/>";
+    private static final String NEW_LINE = "\n";
+    private static final String NEW_LINE_CONFLUENCE = "<br/>";
     private static final String BOLD_ADOC = "**";
     private static final String BOLD_MD = "**";
+    private static final String BOLD_CONFLUENCE = "<strong>";
+    private static final String BOLD_END_CONFLUENCE = "</strong>";
     private static final String ITALICS_ADOC = "__";
     private static final String ITALICS_MD = "*";
+    private static final String ITALICS_CONFLUENCE = "<em>";
+    private static final String ITALICS_END_CONFLUENCE = "</em>";
     private static final String LINK_ADOC = "link:$1[$2]";
     private static final String LINK_MD = "[$2]($1)";
+    private static final String LINK_CONFLUENCE = "<a href=\"$1\">$2</a>";
+    private static final String ESCAPED_PIPE = "\\|";
+    private static final String PIPE = "|";
+    private static final Pattern ENTITY =
+            Pattern.compile("&(#[0-9]+|#x[0-9a-fA-F]+|[a-zA-Z][a-zA-Z0-9]*);");
 
     public static TemplateFormatting ASCIIDOC =
-            new TemplateFormatting(LINE_BREAK_ADOC, BOLD_ADOC, ITALICS_ADOC, LINK_ADOC);
+            new TemplateFormatting(LINE_BREAK_ADOC, NEW_LINE, BOLD_ADOC, BOLD_ADOC, ITALICS_ADOC,
+                    ITALICS_ADOC, LINK_ADOC, ESCAPED_PIPE, false);
 
     public static TemplateFormatting MARKDOWN =
-            new TemplateFormatting(LINE_BREAK_MD, BOLD_MD, ITALICS_MD, LINK_MD);
+            new TemplateFormatting(LINE_BREAK_MD, NEW_LINE, BOLD_MD, BOLD_MD, ITALICS_MD, ITALICS_MD,
+                    LINK_MD, ESCAPED_PIPE, false);
+
+    /**
+     * Confluence storage format, well-formed XHTML. Text is XML-escaped.
+     */
+    public static TemplateFormatting CONFLUENCE =
+            new TemplateFormatting(LINE_BREAK_CONFLUENCE, NEW_LINE_CONFLUENCE, BOLD_CONFLUENCE,
+                    BOLD_END_CONFLUENCE, ITALICS_CONFLUENCE, ITALICS_END_CONFLUENCE, LINK_CONFLUENCE,
+                    PIPE, true);
 
     private final String lineBreak;
+    private final String newLine;
     private final String bold;
+    private final String boldEnd;
     private final String italics;
+    private final String italicsEnd;
     private final String link;
+    private final String pipe;
+    private final boolean xml;
 
-    private TemplateFormatting(String lineBreak, String bold, String italics, String link) {
+    private TemplateFormatting(String lineBreak, String newLine, String bold, String boldEnd,
+            String italics, String italicsEnd, String link, String pipe, boolean xml) {
         this.lineBreak = lineBreak;
+        this.newLine = newLine;
         this.bold = bold;
+        this.boldEnd = boldEnd;
         this.italics = italics;
+        this.italicsEnd = italicsEnd;
         this.link = link;
+        this.pipe = pipe;
+        this.xml = xml;
     }
 
     public String getLineBreak() {
         return lineBreak;
     }
 
+    /**
+     * Separator of paragraphs and list items, which are separated by blank lines in text formats.
+     */
+    public String getNewLine() {
+        return newLine;
+    }
+
     public String getBold() {
         return bold;
     }
 
+    public String getBoldEnd() {
+        return boldEnd;
+    }
+
     public String getItalics() {
         return italics;
     }
 
+    public String getItalicsEnd() {
+        return italicsEnd;
+    }
+
     public String link() {
         return link;
     }
+
+    /**
+     * Pipe as it must be written in a table cell.
+     */
+    public String getPipe() {
+        return pipe;
+    }
+
+    /**
+     * Escape plain text, e.g. a path, a type or a constraint message, so that it can be
+     * written into the template without being read as markup.
+     */
+    public String escape(String text) {
+        return xml && text != null ? escapeXml(text, false) : text;
+    }
+
+    /**
+     * Escape text of HTML, e.g. of Javadoc, where entities like {@code &lt;} are kept.
+     */
+    public String escapeHtmlText(String text) {
+        return xml && text != null ? escapeXml(text, true) : text;
+    }
+
+    private static String escapeXml(String text, boolean keepEntities) {
+        StringBuilder res = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '&') {
+                if (keepEntities && ENTITY.matcher(text).region(i, text.length()).lookingAt()) {
+                    res.append(c);
+                } else {
+                    res.append("&amp;");
+                }
+            } else if (c == '<') {
+                res.append("&lt;");
+            } else if (c == '>') {
+                res.append("&gt;");
+            } else if (c == '"') {
+                res.append("&quot;");
+            } else {
+                res.append(c);
+            }
+        }
+        return res.toString();
+    }
 }
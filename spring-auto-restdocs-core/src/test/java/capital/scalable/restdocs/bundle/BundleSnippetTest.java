@@ -0,0 +1,179 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.bundle;
+
+import static capital.scalable.restdocs.AutoDocumentation.authorization;
+import static capital.scalable.restdocs.AutoDocumentation.pathParameters;
+import static capital.scalable.restdocs.AutoDocumentation.responseFields;
+import static capital.scalable.restdocs.OperationAttributeHelper.REQUEST_PATTERN;
+import static capital.scalable.restdocs.SnippetRegistry.AUTHORIZATION;
+import static capital.scalable.restdocs.SnippetRegistry.HTTP_RESPONSE;
+import static capital.scalable.restdocs.SnippetRegistry.PATH_PARAMETERS;
+import static capital.scalable.restdocs.SnippetRegistry.RESPONSE_FIELDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.restdocs.generate.RestDocumentationGenerator
+        .ATTRIBUTE_NAME_DEFAULT_SNIPPETS;
+import static org.springframework.restdocs.http.HttpDocumentation.httpResponse;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import capital.scalable.restdocs.constraints.ConstraintReader;
+import capital.scalable.restdocs.javadoc.JavadocReader;
+import capital.scalable.restdocs.section.SectionBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.restdocs.RestDocumentationContext;
+import org.springframework.restdocs.operation.Operation;
+import org.springframework.restdocs.snippet.Snippet;
+import org.springframework.restdocs.templates.TemplateFormats;
+import org.springframework.restdocs.test.OperationBuilder;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.method.HandlerMethod;
+
+public class BundleSnippetTest {
+
+    @Rule
+    public OperationBuilder operationBuilder = new OperationBuilder(TemplateFormats.asciidoctor());
+
+    private final JavadocReader javadocReader = mock(JavadocReader.class);
+
+    private final ConstraintReader constraintReader = mock(ConstraintReader.class);
+
+    @Test
+    public void bundleContainsResolvedSections() throws Exception {
+        when(javadocReader.resolveMethodComment(TestResource.class, "getItem"))
+                .thenReturn("Returns the item");
+        when(javadocReader.resolveMethodTag(TestResource.class, "getItem", "title"))
+                .thenReturn("Get item");
+        when(javadocReader.resolveFieldComment(Item.class, "name"))
+                .thenReturn("Name of the item");
+        operationBuilder.request("http://localhost/items/1")
+                .method("GET")
+                .header("Accept", "application/json");
+        operationBuilder.response()
+                .status(200)
+                .content("{\"name\":\"Bike\"}");
+        Operation operation = operationBuilder
+                .attribute(HandlerMethod.class.getName(),
+                        new HandlerMethod(new TestResource(), "getItem", String.class))
+                .attribute(REQUEST_PATTERN, "/items/{id}")
+                .attribute(ObjectMapper.class.getName(), new ObjectMapper())
+                .attribute(JavadocReader.class.getName(), javadocReader)
+                .attribute(ConstraintReader.class.getName(), constraintReader)
+                .attribute(ATTRIBUTE_NAME_DEFAULT_SNIPPETS, Arrays.asList(
+                        authorization("Public"), pathParameters(), responseFields(),
+                        httpResponse()))
+                .build();
+
+        new SectionBuilder()
+                .snippetNames(AUTHORIZATION, PATH_PARAMETERS, RESPONSE_FIELDS, HTTP_RESPONSE)
+                .buildBundle()
+                .document(operation);
+
+        JsonNode bundle = readBundle(operation);
+        assertThat(bundle.get("operation").asText(), is("bundleContainsResolvedSections"));
+        assertThat(bundle.get("format").asText(), is("asciidoctor"));
+        assertThat(bundle.get("title").asText(), is("Get item"));
+        assertThat(bundle.get("method").asText(), is("GET"));
+        assertThat(bundle.get("path").asText(), is("/items/{id}"));
+        assertThat(bundle.get("description").asText(), is("Returns the item."));
+
+        JsonNode sections = bundle.get("sections");
+        assertThat(sections.size(), is(4));
+        assertThat(sections.get(0).get("name").asText(), is(AUTHORIZATION));
+        assertThat(sections.get(0).get("model").get("authorization").asText(), is("Public"));
+        assertThat(sections.get(1).get("model").get("content").get(0).get("path").asText(),
+                is("id"));
+        assertThat(sections.get(2).get("model").get("content").get(0).get("description").asText(),
+                is("Name of the item."));
+        assertThat(sections.get(3).get("name").asText(), is(HTTP_RESPONSE));
+        assertThat(sections.get(3).has("model"), is(false));
+
+        assertThat(bundle.get("request").get("uri").asText(), is("http://localhost/items/1"));
+        assertThat(bundle.get("request").get("headers").get("Accept").get(0).asText(),
+                is("application/json"));
+        assertThat(bundle.get("response").get("status").asInt(), is(200));
+        assertThat(bundle.get("response").get("content").asText(), is("{\"name\":\"Bike\"}"));
+    }
+
+    @Test
+    public void bundleCreatesItsOwnSnippets() throws Exception {
+        when(javadocReader.resolveFieldComment(Item.class, "name"))
+                .thenReturn("Name of the item");
+        operationBuilder.request("http://localhost/items/1")
+                .method("GET");
+        operationBuilder.response()
+                .status(200)
+                .content("{\"name\":\"Bike\"}");
+        BundleSnippet bundleSnippet = new SectionBuilder()
+                .snippetNames(AUTHORIZATION, PATH_PARAMETERS, RESPONSE_FIELDS, HTTP_RESPONSE)
+                .snippets(authorization("Public"))
+                .buildBundle();
+        Operation operation = operationBuilder
+                .attribute(HandlerMethod.class.getName(),
+                        new HandlerMethod(new TestResource(), "getItem", String.class))
+                .attribute(REQUEST_PATTERN, "/items/{id}")
+                .attribute(ObjectMapper.class.getName(), new ObjectMapper())
+                .attribute(JavadocReader.class.getName(), javadocReader)
+                .attribute(ConstraintReader.class.getName(), constraintReader)
+                .attribute(ATTRIBUTE_NAME_DEFAULT_SNIPPETS,
+                        Collections.<Snippet>singletonList(bundleSnippet))
+                .build();
+
+        bundleSnippet.document(operation);
+
+        JsonNode sections = readBundle(operation).get("sections");
+        assertThat(sections.size(), is(4));
+        assertThat(sections.get(0).get("model").get("authorization").asText(), is("Public"));
+        assertThat(sections.get(1).get("name").asText(), is(PATH_PARAMETERS));
+        assertThat(sections.get(1).get("model").get("content").get(0).get("path").asText(),
+                is("id"));
+        assertThat(sections.get(2).get("name").asText(), is(RESPONSE_FIELDS));
+        assertThat(sections.get(2).get("model").get("content").get(0).get("description").asText(),
+                is("Name of the item."));
+        assertThat(sections.get(3).get("name").asText(), is(HTTP_RESPONSE));
+    }
+
+    private JsonNode readBundle(Operation operation) throws Exception {
+        RestDocumentationContext context = (RestDocumentationContext) operation.getAttributes()
+                .get(RestDocumentationContext.class.getName());
+        File file = new File(context.getOutputDirectory(),
+                operation.getName() + "/" + BundleSnippet.BUNDLE + ".json");
+        return new ObjectMapper().readTree(file);
+    }
+
+    private static class TestResource {
+
+        public Item getItem(@PathVariable("id") String id) {
+            return new Item();
+        }
+    }
+
+    private static class Item {
+        public String name;
+    }
+}
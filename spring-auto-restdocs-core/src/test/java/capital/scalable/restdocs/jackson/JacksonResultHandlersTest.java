@@ -0,0 +1,86 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.jackson;
+
+import static capital.scalable.restdocs.jackson.JacksonResultHandlers.prepareJackson;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import capital.scalable.restdocs.constraints.ConstraintReader;
+import capital.scalable.restdocs.constraints.ConstraintReaderImpl;
+import capital.scalable.restdocs.javadoc.JavadocReader;
+import capital.scalable.restdocs.javadoc.JavadocReaderImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultHandler;
+
+public class JacksonResultHandlersTest {
+
+    private static final String ATTRIBUTE_NAME_CONFIGURATION =
+            "org.springframework.restdocs.configuration";
+
+    @Test
+    public void sharedReadersAreReusedAcrossRequests() throws Exception {
+        Map<String, Object> first = handle(prepareJackson(new ObjectMapper()));
+        Map<String, Object> second = handle(prepareJackson(new ObjectMapper()));
+
+        assertThat(first.get(JavadocReader.class.getName()),
+                is((Object) JavadocReaderImpl.sharedWithSystemProperty()));
+        assertThat(second.get(JavadocReader.class.getName()),
+                sameInstance(first.get(JavadocReader.class.getName())));
+        assertThat(first.get(ConstraintReader.class.getName()),
+                is((Object) ConstraintReaderImpl.shared()));
+        assertThat(second.get(ConstraintReader.class.getName()),
+                sameInstance(first.get(ConstraintReader.class.getName())));
+    }
+
+    @Test
+    public void injectedReadersAreUsed() throws Exception {
+        JavadocReader javadocReader = mock(JavadocReader.class);
+        ConstraintReader constraintReader = mock(ConstraintReader.class);
+
+        Map<String, Object> configuration = handle(
+                prepareJackson(new ObjectMapper(), javadocReader, constraintReader));
+
+        assertThat(configuration.get(JavadocReader.class.getName()),
+                is((Object) javadocReader));
+        assertThat(configuration.get(ConstraintReader.class.getName()),
+                is((Object) constraintReader));
+    }
+
+    private Map<String, Object> handle(ResultHandler handler) throws Exception {
+        Map<String, Object> configuration = new HashMap<>();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(ATTRIBUTE_NAME_CONFIGURATION, configuration);
+        MvcResult result = mock(MvcResult.class);
+        when(result.getRequest()).thenReturn(request);
+
+        handler.handle(result);
+        return configuration;
+    }
+}
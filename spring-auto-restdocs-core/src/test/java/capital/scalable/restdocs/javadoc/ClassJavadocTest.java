@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.javadoc;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.Test;
+
+public class ClassJavadocTest {
+
+    private static final String JSON = "{\"comment\":\"An item.\","
+            + "\"fields\":{\"name\":{\"comment\":\"The name.\",\"tags\":{\"title\":\"Name\"}},"
+            + "\"id\":{\"comment\":\"The ID.\"}},"
+            + "\"methods\":{\"getName\":{\"comment\":\"The name.\","
+            + "\"parameters\":{\"locale\":\"The locale.\"},\"tags\":{\"title\":\"Name\"}}}}";
+
+    private final ObjectReader reader = JavadocReaderImpl.objectMapper(new JsonFactory())
+            .readerFor(ClassJavadoc.class);
+
+    @Test
+    public void compactKeepsJavadoc() throws IOException {
+        ClassJavadoc classJavadoc = read().compact(new StringInterner());
+
+        assertThat(classJavadoc.getClassComment(), equalTo("An item."));
+        assertThat(classJavadoc.getFieldComment("name"), equalTo("The name."));
+        assertThat(classJavadoc.getFieldComment("id"), equalTo("The ID."));
+        assertThat(classJavadoc.getFieldComment("missing"), equalTo(""));
+        assertThat(classJavadoc.getFieldTag("name", "title"), equalTo("Name"));
+        assertThat(classJavadoc.getFieldTag("id", "title"), equalTo(""));
+        assertThat(classJavadoc.getMethodComment("getName"), equalTo("The name."));
+        assertThat(classJavadoc.getMethodParameterComment("getName", "locale"),
+                equalTo("The locale."));
+        assertThat(classJavadoc.getMethodTag("getName", "title"), equalTo("Name"));
+        assertThat(classJavadoc.getMethodTag("getName", "deprecated"), equalTo(""));
+    }
+
+    @Test
+    public void compactDeduplicatesTagValues() throws IOException {
+        StringInterner interner = new StringInterner();
+        ClassJavadoc first = read().compact(interner);
+        ClassJavadoc second = read().compact(interner);
+
+        assertThat(first.getMethodTag("getName", "title"),
+                sameInstance(second.getFieldTag("name", "title")));
+        assertThat(first.getFieldComment("name"),
+                not(sameInstance(second.getFieldComment("name"))));
+        assertThat(first.getFieldComment("name"), equalTo(second.getFieldComment("name")));
+    }
+
+    @Test
+    public void compactMapLookup() {
+        Map<String, String> map = new HashMap<>();
+        map.put("b", "2");
+        map.put("a", "1");
+        map.put("c", "3");
+        Map<String, String> compact = CompactMap.copyOf(map, new StringInterner());
+
+        assertThat(compact, instanceOf(CompactMap.class));
+        assertThat(compact, equalTo(map));
+        assertThat(compact.get("a"), equalTo("1"));
+        assertThat(compact.get("d"), is((String) null));
+        assertThat(CompactMap.copyOf(new HashMap<String, String>(),
+                new StringInterner()), sameInstance(CompactMap.<String>empty()));
+    }
+
+    private ClassJavadoc read() throws IOException {
+        return reader.readValue(JSON);
+    }
+}
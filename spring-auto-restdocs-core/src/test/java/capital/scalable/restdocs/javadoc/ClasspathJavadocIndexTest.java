@@ -0,0 +1,91 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.javadoc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+
+public class ClasspathJavadocIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void indexesMarkedJarsAndDirectories() throws IOException {
+        File markedJar = jar("marked.jar", true, "{\"comment\":\"marked\"}");
+        File unmarkedJar = jar("unmarked.jar", false, "{\"comment\":\"unmarked\"}");
+        File dir = temporaryFolder.newFolder("classes");
+        write(new File(dir, ClasspathJavadocIndex.MARKER), "");
+        write(new File(dir, "pkg/Other.json"), "{\"comment\":\"directory\"}");
+        write(new File(dir, "pkg/Item.json"), "{\"comment\":\"shadowed\"}");
+
+        ClasspathJavadocIndex index = ClasspathJavadocIndex.scan(new URLClassLoader(new URL[]{
+                unmarkedJar.toURI().toURL(), markedJar.toURI().toURL(), dir.toURI().toURL()},
+                null));
+
+        assertThat(index.size(), is(2));
+        assertThat(read(index, "pkg" + File.separator + "Item.json"),
+                is("{\"comment\":\"marked\"}"));
+        assertThat(read(index, "pkg/Other.json"), is("{\"comment\":\"directory\"}"));
+        assertThat(index.open("pkg/Missing.json"), is(nullValue()));
+    }
+
+    private String read(ClasspathJavadocIndex index, String relativePath) throws IOException {
+        try (InputStream in = index.open(relativePath)) {
+            return StreamUtils.copyToString(in, UTF_8);
+        }
+    }
+
+    private File jar(String name, boolean marked, String json) throws IOException {
+        File file = new File(temporaryFolder.getRoot(), name);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            if (marked) {
+                out.putNextEntry(new ZipEntry(ClasspathJavadocIndex.MARKER));
+                out.closeEntry();
+            }
+            out.putNextEntry(new ZipEntry("pkg/Item.json"));
+            out.write(json.getBytes(UTF_8));
+            out.closeEntry();
+        }
+        return file;
+    }
+
+    private void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,146 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.javadoc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.junit.Test;
+
+/**
+ * Compares disk size and parse time of JSON and Smile Javadoc files.
+ * <p>
+ * Not part of the regular test run, execute it with
+ * {@code mvn test -Dtest=JavadocFormatBenchmark}.
+ * JSON files are read from the directory given by {@code benchmark.javadocJsonDir},
+ * e.g. the generated Javadoc JSON of a large code base. Without it, {@code benchmark.classes}
+ * synthetic classes are used. The number of parse rounds is set with {@code benchmark.rounds}.
+ */
+public class JavadocFormatBenchmark {
+
+    @Test
+    public void compareJsonAndSmile() throws IOException {
+        List<byte[]> jsonDocuments = jsonDocuments(5000);
+        int rounds = Integer.getInteger("benchmark.rounds", 20);
+
+        ObjectMapper jsonMapper = JavadocReaderImpl.objectMapper(new JsonFactory());
+        SmileFactory smileFactory = new SmileFactory();
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        ObjectMapper smileMapper = JavadocReaderImpl.objectMapper(smileFactory);
+
+        List<byte[]> smileDocuments = new ArrayList<>();
+        for (byte[] json : jsonDocuments) {
+            smileDocuments.add(smileMapper.writeValueAsBytes(jsonMapper.readTree(json)));
+        }
+
+        System.out.println(String.format("classes: %s, rounds: %s", jsonDocuments.size(), rounds));
+        System.out.println(String.format("%8s %14s %14s", "format", "bytes", "millis/round"));
+        measure("json", jsonDocuments, jsonMapper.readerFor(ClassJavadoc.class), rounds);
+        measure("smile", smileDocuments, smileMapper.readerFor(ClassJavadoc.class), rounds);
+    }
+
+    private void measure(String format, List<byte[]> documents, ObjectReader reader, int rounds)
+            throws IOException {
+        long bytes = 0;
+        for (byte[] document : documents) {
+            bytes += document.length;
+        }
+
+        // warm up
+        parse(documents, reader);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            parse(documents, reader);
+        }
+        double millis = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / 1000.0 / rounds;
+
+        System.out.println(String.format("%8s %14d %14.2f", format, bytes, millis));
+    }
+
+    private void parse(List<byte[]> documents, ObjectReader reader) throws IOException {
+        for (byte[] document : documents) {
+            ClassJavadoc classJavadoc = reader.readValue(document);
+            if (classJavadoc == null) {
+                throw new IllegalStateException("Empty document");
+            }
+        }
+    }
+
+    static List<byte[]> jsonDocuments(int defaultClasses) throws IOException {
+        String dir = System.getProperty("benchmark.javadocJsonDir");
+        if (dir == null) {
+            return syntheticDocuments(Integer.getInteger("benchmark.classes", defaultClasses));
+        }
+
+        final List<byte[]> documents = new ArrayList<>();
+        Files.walkFileTree(new File(dir).toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                    throws IOException {
+                if (file.toString().endsWith(".json")) {
+                    documents.add(Files.readAllBytes(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return documents;
+    }
+
+    static List<byte[]> syntheticDocuments(int classes) {
+        List<byte[]> documents = new ArrayList<>();
+        for (int i = 0; i < classes; i++) {
+            StringBuilder json = new StringBuilder("{\"comment\":\"Class ").append(i)
+                    .append(" of the synthetic code base.\",\"fields\":{");
+            for (int f = 0; f < 10; f++) {
+                json.append(f == 0 ? "" : ",").append("\"field").append(f)
+                        .append("\":{\"comment\":\"The field ").append(f)
+                        .append(" of class ").append(i).append(".\",\"tags\":{\"title\":\"Field\"}}");
+            }
+            json.append("},\"methods\":{");
+            for (int m = 0; m < 5; m++) {
+                json.append(m == 0 ? "" : ",").append("\"method").append(m)
+                        .append("\":{\"comment\":\"Returns item ").append(m).append(" of class ")
+                        .append(i).append(".\",\"parameters\":{\"id\":\"ID of item ").append(m)
+                        .append(" of class ").append(i)
+                        .append("\"},\"tags\":{\"title\":\"Get item\"}}");
+            }
+            json.append("}}");
+            documents.add(json.toString().getBytes(UTF_8));
+        }
+        return documents;
+    }
+}
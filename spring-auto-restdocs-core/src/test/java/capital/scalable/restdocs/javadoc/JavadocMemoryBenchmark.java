@@ -0,0 +1,77 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.javadoc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.Test;
+
+/**
+ * Compares the retained heap of parsed and compacted Javadoc models.
+ * <p>
+ * Not part of the regular test run, execute it with
+ * {@code mvn test -Dtest=JavadocMemoryBenchmark}.
+ * JSON files are read from the directory given by {@code benchmark.javadocJsonDir},
+ * e.g. the generated Javadoc JSON of a large code base. Without it, {@code benchmark.classes}
+ * synthetic classes with unique comments are used.
+ */
+public class JavadocMemoryBenchmark {
+
+    @Test
+    public void compareParsedAndCompacted() throws IOException {
+        List<byte[]> documents = JavadocFormatBenchmark.jsonDocuments(20000);
+        ObjectReader reader = JavadocReaderImpl.objectMapper(new JsonFactory())
+                .readerFor(ClassJavadoc.class);
+
+        System.out.println(String.format("classes: %s", documents.size()));
+        System.out.println(String.format("%10s %14s", "model", "retained MB"));
+        measure("parsed", documents, reader, null);
+        measure("compacted", documents, reader, new StringInterner());
+    }
+
+    private void measure(String model, List<byte[]> documents, ObjectReader reader,
+            StringInterner interner) throws IOException {
+        long before = usedHeap();
+        List<ClassJavadoc> retained = new ArrayList<>(documents.size());
+        for (byte[] document : documents) {
+            ClassJavadoc classJavadoc = reader.readValue(document);
+            retained.add(interner == null ? classJavadoc : classJavadoc.compact(interner));
+        }
+        long after = usedHeap();
+
+        System.out.println(String.format("%10s %14.1f", model,
+                (after - before) / 1024.0 / 1024.0));
+        if (retained.size() != documents.size()) {
+            throw new IllegalStateException("Lost documents");
+        }
+    }
+
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -19,16 +19,38 @@
  */
 package capital.scalable.restdocs.javadoc;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonMap;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
+import java.io.DataOutputStream;
 import java.io.File;
-
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class JavadocReaderImplTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private static final String SOURCE_DIR = JavadocReaderImplTest.class.
             getClassLoader().getResource("json").getPath();
 
@@ -55,6 +77,133 @@ public class JavadocReaderImplTest {
         assertThat(comment, equalTo("Simple field comment"));
     }
 
+    @Test
+    public void sharedReaderPerDirectoryConfiguration() {
+        JavadocReader javadocReader = JavadocReaderImpl.shared(SOURCE_DIR);
+        String otherDir = new File(SOURCE_DIR, "does-not-exist").getPath();
+
+        assertThat(JavadocReaderImpl.shared(" " + SOURCE_DIR + ","), sameInstance(javadocReader));
+        assertThat(JavadocReaderImpl.shared(otherDir), not(sameInstance(javadocReader)));
+        assertThat(javadocReader.resolveFieldComment(SimpleType.class, "simpleField"),
+                equalTo("Simple field comment"));
+    }
+
+    @Test
+    public void resolveFieldCommentFromPackedIndex() throws IOException {
+        writePackedIndex(SimpleType.class.getCanonicalName(),
+                ("{\"fields\":{\"simpleField\":"
+                        + "{\"comment\":\"Simple field comment from pack\"}}}").getBytes(UTF_8));
+        JavadocReader javadocReader = JavadocReaderImpl.createWith(
+                temporaryFolder.getRoot().getPath() + "," + SOURCE_DIR);
+
+        assertThat(javadocReader.resolveFieldComment(SimpleType.class, "simpleField"),
+                equalTo("Simple field comment from pack"));
+        // not in the packed index, read from the next directory
+        assertThat(javadocReader.resolveMethodComment(ClassB.class, "javadocOnClassB"),
+                equalTo("Method comment on class B"));
+    }
+
+    @Test
+    public void resolveFieldCommentFromSmilePackedIndex() throws IOException {
+        writePackedIndex(SimpleType.class.getCanonicalName(),
+                smile("Simple field comment from Smile pack"));
+        JavadocReader javadocReader = JavadocReaderImpl.createWith(
+                temporaryFolder.getRoot().getPath());
+
+        assertThat(javadocReader.resolveFieldComment(SimpleType.class, "simpleField"),
+                equalTo("Simple field comment from Smile pack"));
+    }
+
+    @Test
+    public void resolveFieldCommentFromSmileFile() throws IOException {
+        File dir = temporaryFolder.newFolder("capital", "scalable", "restdocs", "javadoc");
+        Files.write(new File(dir, "JavadocReaderImplTest.SimpleType.smile").toPath(),
+                smile("Simple field comment from Smile"));
+        JavadocReader javadocReader = JavadocReaderImpl.createWith(
+                temporaryFolder.getRoot().getPath());
+
+        assertThat(javadocReader.resolveFieldComment(SimpleType.class, "simpleField"),
+                equalTo("Simple field comment from Smile"));
+    }
+
+    @Test
+    public void resolveFromPreloadedFiles() throws IOException {
+        File dir = temporaryFolder.newFolder("capital", "scalable", "restdocs", "javadoc");
+        File jsonFile = new File(dir, "JavadocReaderImplTest.SimpleType.json");
+        Files.copy(new File(SOURCE_DIR, "capital/scalable/restdocs/javadoc/"
+                + "JavadocReaderImplTest.SimpleType.json").toPath(), jsonFile.toPath());
+        File smileFile = new File(dir, "JavadocReaderImplTest.ClassC.smile");
+        Files.write(smileFile.toPath(), new ObjectMapper(new SmileFactory()).writeValueAsBytes(
+                singletonMap("methods", singletonMap("javadocOnClassC",
+                        singletonMap("comment", "Method comment from Smile")))));
+
+        JavadocReaderImpl javadocReader = JavadocReaderImpl.createWith(
+                temporaryFolder.getRoot().getPath());
+        javadocReader.preload();
+        // served from memory
+        assertThat(jsonFile.delete() && smileFile.delete(), is(true));
+
+        assertThat(javadocReader.resolveFieldComment(SimpleType.class, "simpleField"),
+                equalTo("Simple field comment"));
+        assertThat(javadocReader.resolveMethodComment(ClassC.class, "javadocOnClassC"),
+                equalTo("Method comment from Smile"));
+    }
+
+    @Test
+    public void resolveRepeatedMethodLookups() {
+        JavadocReader javadocReader = JavadocReaderImpl.createWith(SOURCE_DIR);
+        for (int i = 0; i < 2; i++) {
+            assertThat(javadocReader.resolveMethodComment(SimpleType.class, "simpleMethod"),
+                    equalTo("Simple method comment"));
+            assertThat(javadocReader.resolveMethodTag(SimpleType.class, "simpleMethod", "title"),
+                    equalTo("Simple method title"));
+            assertThat(javadocReader.resolveMethodTag(SimpleType.class, "simpleMethod",
+                    "deprecated"), equalTo("Deprecation comment"));
+            assertThat(javadocReader.resolveMethodParameterComment(SimpleType.class,
+                    "simpleMethod", "simpleParameter"), equalTo("Simple parameter comment"));
+            assertThat(javadocReader.resolveMethodComment(ClassC.class, "javadocOnClassB"),
+                    equalTo("Method comment on class B"));
+        }
+    }
+
+    @Test
+    public void readsEachClassOnceUnderConcurrentAccess() throws Exception {
+        final JavadocReaderImpl javadocReader = JavadocReaderImpl.createWith(SOURCE_DIR);
+        final Class<?>[] classes = {SimpleType.class, ClassB.class, NotExisting.class};
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int j = 0; j < 100; j++) {
+                            for (Class<?> clazz : classes) {
+                                javadocReader.resolveFieldComment(clazz, "simpleField");
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(javadocReader.getReadCount(), is(classes.length));
+        assertThat(javadocReader.resolveFieldComment(SimpleType.class, "simpleField"),
+                equalTo("Simple field comment"));
+        assertThat(javadocReader.resolveFieldComment(NotExisting.class, "simpleField"),
+                equalTo(""));
+        assertThat(javadocReader.getReadCount(), is(classes.length));
+    }
+
     @Test
     public void resolveFieldTag() {
         JavadocReader javadocReader = JavadocReaderImpl.createWith(SOURCE_DIR);
@@ -267,4 +416,24 @@ public class JavadocReaderImplTest {
 
     private static class NotExisting {
     }
+
+    private byte[] smile(String fieldComment) throws IOException {
+        return new ObjectMapper(new SmileFactory()).writeValueAsBytes(singletonMap("fields",
+                singletonMap("simpleField", singletonMap("comment", fieldComment))));
+    }
+
+    private void writePackedIndex(String className, byte[] document) throws IOException {
+        byte[] name = className.getBytes(UTF_8);
+        File file = new File(temporaryFolder.getRoot(), PackedJavadocIndex.FILE_NAME);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0x53415244);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeInt(name.length);
+            out.write(name);
+            out.writeInt(0);
+            out.writeInt(document.length);
+            out.write(document);
+        }
+    }
 }
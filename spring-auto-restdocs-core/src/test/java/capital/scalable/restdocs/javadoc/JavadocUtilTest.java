@@ -63,6 +63,24 @@ public class JavadocUtilTest {
                 is(expected));
     }
 
+    @Test
+    public void convertLineBreaksConfluence() {
+        String actual = "" +
+                "First line is ok" +
+                "<br>  second line should be trimmed  " +
+                "<br/>\n\nthis is just \none\n\n line " +
+                "<p> first paragraph</p>" +
+                "<p> second <b>bold</b> <i>paragraph</i> \n \n  ";
+        String expected = "" +
+                "First line is ok" +
+                "<br/>second line should be trimmed" +
+                "<br/>this is just one line" +
+                "<br/><br/>first paragraph<br/><br/>" +
+                "<br/><br/>second <strong>bold</strong> <em>paragraph</em>";
+        assertThat(JavadocUtil.convertFromJavadoc(actual, TemplateFormatting.CONFLUENCE),
+                is(expected));
+    }
+
     @Test
     public void convertBulletedListAsciidoc() {
         String actual = "" +
@@ -0,0 +1,178 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Core
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.util;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static java.util.Collections.singletonList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.restdocs.cli.CliDocumentation.curlRequest;
+import static org.springframework.restdocs.http.HttpDocumentation.httpResponse;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import capital.scalable.restdocs.constraints.ConstraintReader;
+import capital.scalable.restdocs.javadoc.JavadocReader;
+import capital.scalable.restdocs.misc.DescriptionSnippet;
+import capital.scalable.restdocs.payload.JacksonResponseFieldSnippet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.restdocs.RestDocumentationContext;
+import org.springframework.restdocs.operation.Operation;
+import org.springframework.restdocs.templates.TemplateEngine;
+import org.springframework.restdocs.test.OperationBuilder;
+import org.springframework.web.method.HandlerMethod;
+
+public class AutoTemplateFormatsTest {
+
+    @Rule
+    public OperationBuilder operationBuilder = new OperationBuilder(AutoTemplateFormats.confluence());
+
+    private final JavadocReader javadocReader = mock(JavadocReader.class);
+
+    private final ConstraintReader constraintReader = mock(ConstraintReader.class);
+
+    @Test
+    public void responseFieldsAreStorageFormatTable() throws Exception {
+        when(javadocReader.resolveFieldComment(Item.class, "name"))
+                .thenReturn("The <b>name</b><br>of the item | product");
+        when(constraintReader.getConstraintMessages(Item.class, "name"))
+                .thenReturn(singletonList("Must not be blank"));
+        Operation operation = operationBuilder
+                .attribute(HandlerMethod.class.getName(),
+                        new HandlerMethod(new TestResource(), "getItem"))
+                .attribute(ObjectMapper.class.getName(), new ObjectMapper())
+                .attribute(JavadocReader.class.getName(), javadocReader)
+                .attribute(ConstraintReader.class.getName(), constraintReader)
+                .build();
+
+        new JacksonResponseFieldSnippet().document(operation);
+
+        String snippet = readWellFormedSnippet(operation, "auto-response-fields");
+        assertThat(snippet, containsString("<tr><td><code>name</code></td><td>String</td>"));
+        assertThat(snippet, containsString("The <strong>name</strong><br/>of the item | product."
+                + "<br/><br/>Must not be blank."));
+    }
+
+    @Test
+    public void textIsEscaped() throws Exception {
+        when(javadocReader.resolveFieldComment(Item.class, "name"))
+                .thenReturn("Name &amp; <b>title</b> of <a href='/items?a=1&b=2'>item</a>, "
+                        + "a < b & c ]]> d");
+        when(constraintReader.getConstraintMessages(Item.class, "name"))
+                .thenReturn(singletonList("Must match \"^<[a-z]+>&$\""));
+        Operation operation = operationBuilder
+                .attribute(HandlerMethod.class.getName(),
+                        new HandlerMethod(new TestResource(), "getItem"))
+                .attribute(ObjectMapper.class.getName(), new ObjectMapper())
+                .attribute(JavadocReader.class.getName(), javadocReader)
+                .attribute(ConstraintReader.class.getName(), constraintReader)
+                .build();
+
+        new JacksonResponseFieldSnippet().document(operation);
+
+        String snippet = readWellFormedSnippet(operation, "auto-response-fields");
+        assertThat(snippet, containsString("Name &amp; <strong>title</strong> of "
+                + "<a href=\"/items?a=1&amp;b=2\">item</a>, a &lt; b &amp; c ]]&gt; d."
+                + "<br/><br/>Must match &quot;^&lt;[a-z]+&gt;&amp;$&quot;."));
+    }
+
+    @Test
+    public void descriptionIsParagraph() throws Exception {
+        when(javadocReader.resolveMethodComment(TestResource.class, "getItem"))
+                .thenReturn("Returns the item.<br>Use <i>sparingly</i>");
+        when(javadocReader.resolveMethodTag(TestResource.class, "getItem", "deprecated"))
+                .thenReturn("");
+        Operation operation = operationBuilder
+                .attribute(HandlerMethod.class.getName(),
+                        new HandlerMethod(new TestResource(), "getItem"))
+                .attribute(JavadocReader.class.getName(), javadocReader)
+                .request("http://localhost/items/1")
+                .build();
+
+        new DescriptionSnippet().document(operation);
+
+        assertThat(readWellFormedSnippet(operation, "auto-description"),
+                is("<p>Returns the item.<br/>Use <em>sparingly</em>.</p>"));
+    }
+
+    @Test
+    public void restDocsSnippetsAreCodeMacros() throws Exception {
+        operationBuilder.request("http://localhost/items/1");
+        Operation operation = operationBuilder.response()
+                .status(200)
+                .content("{\"name\":\"<b>\"}")
+                .build();
+
+        curlRequest().document(operation);
+        httpResponse().document(operation);
+
+        assertThat(readWellFormedSnippet(operation, "curl-request"),
+                containsString("<![CDATA[$ curl 'http://localhost/items/1' -i]]>"));
+        assertThat(readWellFormedSnippet(operation, "http-response"),
+                containsString("{\"name\":\"<b>\"}]]>"));
+    }
+
+    @Test
+    public void cdataIsGuarded() throws Exception {
+        operationBuilder.attribute(TemplateEngine.class.getName(),
+                AutoTemplateFormats.confluenceTemplateEngine());
+        operationBuilder.request("http://localhost/items/1");
+        Operation operation = operationBuilder.response()
+                .status(200)
+                .content("{\"name\":\"]]>\"}")
+                .build();
+
+        httpResponse().document(operation);
+
+        assertThat(readWellFormedSnippet(operation, "http-response"),
+                containsString("{\"name\":\"]]]]><![CDATA[>\"}]]>"));
+    }
+
+    private String readWellFormedSnippet(Operation operation, String name) throws Exception {
+        RestDocumentationContext context = (RestDocumentationContext) operation.getAttributes()
+                .get(RestDocumentationContext.class.getName());
+        File file = new File(context.getOutputDirectory(), operation.getName() + "/" + name + ".xhtml");
+        String snippet = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+        String document = "<root xmlns:ac=\"http://atlassian.com/content\">" + snippet + "</root>";
+        DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+        return snippet;
+    }
+
+    private static class TestResource {
+
+        public Item getItem() {
+            return new Item();
+        }
+    }
+
+    private static class Item {
+        public String name;
+    }
+}
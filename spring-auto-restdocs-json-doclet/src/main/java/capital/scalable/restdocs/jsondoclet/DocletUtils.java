@@ -19,6 +19,11 @@
  */
 package capital.scalable.restdocs.jsondoclet;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
 public class DocletUtils {
     private DocletUtils() {
         // utils
@@ -27,4 +32,18 @@ public class DocletUtils {
     public static String cleanupTagName(String name) {
         return name.startsWith("@") ? name.substring(1) : name;
     }
+
+    /**
+     * Writes the content unless the file already has exactly this content.
+     *
+     * @return whether the file was written
+     */
+    static boolean writeIfChanged(Path path, byte[] content) throws IOException {
+        if (Files.isRegularFile(path) && Files.size(path) == content.length
+                && Arrays.equals(Files.readAllBytes(path), content)) {
+            return false;
+        }
+        Files.write(path, content);
+        return true;
+    }
 }
@@ -19,37 +19,179 @@
  */
 package capital.scalable.restdocs.jsondoclet;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.DocErrorReporter;
 import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.SourcePosition;
 import com.sun.tools.doclets.standard.Standard;
 
 /**
  * Javadoc to JSON doclet.
+ * <p>
+ * Writes one JSON file per class or, with the {@code -packed} option,
+ * a single packed index file containing all classes.
+ * With the {@code -smile} option the documentation is written in the binary Smile format
+ * with shared string back-references instead of JSON.
+ * <p>
+ * Files are only written if their content changed, so their modification time stays stable.
+ * With the {@code -skipuptodate} option classes are skipped entirely if their output file
+ * is newer than their source file. Unchanged output is then touched instead, so a source change
+ * which does not change the documentation is not serialized again on every run.
+ * Serialization and writing is done by {@code -threads} threads, by default one per processor.
+ * <p>
+ * With the {@code -reachable} option only classes reachable from controllers are written.
+ * Additional root classes can be given as comma separated list with {@code -roots}.
+ * <p>
+ * The marker file {@code META-INF/javadoc-json.index} is written next to the JSON files,
+ * so that the reader indexes jars packaged from the output directory.
+ * <p>
+ * The reader prefers the packed index over class files and JSON over Smile. When class files
+ * are written, the packed index and the class files of the other format are deleted,
+ * so that output of an earlier run in another mode does not shadow them.
  */
 public class ExtractDocumentationAsJsonDoclet extends Standard {
+    private static final String PACKED_OPTION = "-packed";
+    private static final String SMILE_OPTION = "-smile";
+    private static final String SKIP_UP_TO_DATE_OPTION = "-skipuptodate";
+    private static final String THREADS_OPTION = "-threads";
+    private static final String REACHABLE_OPTION = "-reachable";
+    private static final String ROOTS_OPTION = "-roots";
+    private static final String CLASSPATH_MARKER = "META-INF/javadoc-json.index";
 
     public static boolean start(RootDoc root) {
         String destinationDir = destinationDir(root.options());
-        ObjectMapper mapper = createObjectMapper();
+        boolean smile = hasOption(root.options(), SMILE_OPTION);
+        ObjectMapper mapper = createObjectMapper(smile ? smileFactory() : new JsonFactory());
+        ClassDoc[] classDocs = root.classes();
+
+        List<String> roots = roots(root.options());
+        if (hasOption(root.options(), REACHABLE_OPTION) || !roots.isEmpty()) {
+            classDocs = ReachabilityFilter.filter(classDocs, roots);
+            root.printNotice(String.format("Javadoc JSON: %s of %s classes reachable",
+                    classDocs.length, root.classes().length));
+        }
 
-        for (ClassDoc classDoc : root.classes()) {
-            ClassDocumentation cd = ClassDocumentation.fromClassDoc(classDoc);
-            writeToFile(destinationDir, mapper, classDoc, cd);
+        if (hasOption(root.options(), PACKED_OPTION)) {
+            writePackedIndex(destinationDir, mapper, classDocs);
+            return true;
         }
+
+        String extension = smile ? ".smile" : ".json";
+        String otherExtension = smile ? ".json" : ".smile";
+        boolean skipUpToDate = hasOption(root.options(), SKIP_UP_TO_DATE_OPTION);
+        AtomicInteger written = new AtomicInteger();
+        int upToDate = 0;
+        List<Future<?>> writes = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads(root.options()));
+        try {
+            deletePackedIndex(destinationDir);
+            for (ClassDoc classDoc : classDocs) {
+                Path path = path(destinationDir, classDoc, extension);
+                Files.deleteIfExists(path.resolveSibling(classDoc.name() + otherExtension));
+                if (skipUpToDate && isUpToDate(classDoc, path)) {
+                    upToDate++;
+                    continue;
+                }
+                // the doc tree is not thread-safe and thus read here
+                ClassDocumentation cd = ClassDocumentation.fromClassDoc(classDoc);
+                writes.add(executor.submit(writeTask(mapper, path, cd, written, skipUpToDate)));
+            }
+            awaitWrites(writes);
+            writeClasspathMarker(destinationDir);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new DocletAbortException("Error writing file: " + e);
+        } finally {
+            executor.shutdownNow();
+        }
+        root.printNotice(String.format("Javadoc JSON: %s written, %s unchanged, %s up to date",
+                written.get(), writes.size() - written.get(), upToDate));
         return true;
     }
 
+    public static int optionLength(String option) {
+        if (PACKED_OPTION.equals(option) || SMILE_OPTION.equals(option)
+                || SKIP_UP_TO_DATE_OPTION.equals(option) || REACHABLE_OPTION.equals(option)) {
+            return 1;
+        }
+        if (THREADS_OPTION.equals(option) || ROOTS_OPTION.equals(option)) {
+            return 2;
+        }
+        return Standard.optionLength(option);
+    }
+
+    public static boolean validOptions(String[][] options, DocErrorReporter reporter) {
+        for (String[] os : options) {
+            if (os[0].equals(THREADS_OPTION) && parseThreads(os[1]) < 1) {
+                reporter.printError(String.format("%s requires a positive number of threads, got: %s",
+                        THREADS_OPTION, os[1]));
+                return false;
+            }
+        }
+        return Standard.validOptions(options, reporter);
+    }
+
+    private static int threads(String[][] options) {
+        for (String[] os : options) {
+            if (os[0].equals(THREADS_OPTION)) {
+                return parseThreads(os[1]);
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private static int parseThreads(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static List<String> roots(String[][] options) {
+        List<String> roots = new ArrayList<>();
+        for (String[] os : options) {
+            if (os[0].equals(ROOTS_OPTION)) {
+                for (String rootClass : os[1].split(",")) {
+                    if (!rootClass.trim().isEmpty()) {
+                        roots.add(rootClass.trim());
+                    }
+                }
+            }
+        }
+        return roots;
+    }
+
+    private static boolean hasOption(String[][] options, String option) {
+        for (String[] os : options) {
+            if (os[0].equals(option)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static String destinationDir(String[][] options) {
         for (String[] os : options) {
             String opt = os[0].toLowerCase();
@@ -60,20 +202,75 @@ public class ExtractDocumentationAsJsonDoclet extends Standard {
         return "../generated-javadoc-json";
     }
 
-    private static void writeToFile(String destinationDir, ObjectMapper mapper,
-            ClassDoc classDoc, ClassDocumentation cd) {
+    private static void writePackedIndex(String destinationDir, ObjectMapper mapper,
+            ClassDoc[] classDocs) {
         try {
-            Path path = path(destinationDir, classDoc);
-            try (BufferedWriter writer = Files.newBufferedWriter(path, UTF_8)) {
-                mapper.writerFor(ClassDocumentation.class).writeValue(writer, cd);
+            PackedIndexWriter writer = new PackedIndexWriter(mapper);
+            for (ClassDoc classDoc : classDocs) {
+                writer.add(classDoc.qualifiedName(), ClassDocumentation.fromClassDoc(classDoc));
             }
+            writer.write(destinationDir != null ? Paths.get(destinationDir) : Paths.get(""));
         } catch (IOException e) {
             e.printStackTrace();
-            throw new DocletAbortException("Error writing file: " + e);
+            throw new DocletAbortException("Error writing packed index: " + e);
+        }
+    }
+
+    private static void deletePackedIndex(String destinationDir) throws IOException {
+        Files.deleteIfExists(Paths.get(destinationDir != null ? destinationDir : "")
+                .resolve(PackedIndexWriter.FILE_NAME));
+    }
+
+    private static void writeClasspathMarker(String destinationDir) throws IOException {
+        Path marker = Paths.get(destinationDir != null ? destinationDir : "")
+                .resolve(CLASSPATH_MARKER);
+        Files.createDirectories(marker.getParent());
+        DocletUtils.writeIfChanged(marker, new byte[0]);
+    }
+
+    private static boolean isUpToDate(ClassDoc classDoc, Path path) {
+        SourcePosition position = classDoc.position();
+        if (position == null || position.file() == null || !Files.isRegularFile(path)) {
+            return false;
+        }
+        return path.toFile().lastModified() >= position.file().lastModified();
+    }
+
+    private static Callable<Void> writeTask(final ObjectMapper mapper, final Path path,
+            final ClassDocumentation cd, final AtomicInteger written, final boolean touch) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                byte[] content = mapper.writerFor(ClassDocumentation.class).writeValueAsBytes(cd);
+                if (DocletUtils.writeIfChanged(path, content)) {
+                    written.incrementAndGet();
+                } else if (touch) {
+                    // newer than the source from now on, so it is up to date in the next run
+                    Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+                }
+                return null;
+            }
+        };
+    }
+
+    private static void awaitWrites(List<Future<?>> writes) throws IOException {
+        try {
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DocletAbortException("Interrupted while writing files");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new DocletAbortException("Error writing file: " + e.getCause());
         }
     }
 
-    private static Path path(String destinationDir, ClassDoc classDoc) throws IOException {
+    private static Path path(String destinationDir, ClassDoc classDoc, String extension)
+            throws IOException {
         String packageName = classDoc.containingPackage().name();
         String packageDir = packageName.replace(".", File.separator);
         Path packagePath = Paths.get(packageDir);
@@ -87,11 +284,20 @@ public class ExtractDocumentationAsJsonDoclet extends Standard {
 
         Files.createDirectories(path);
 
-        return path.resolve(classDoc.name() + ".json");
+        return path.resolve(classDoc.name() + extension);
+    }
+
+    private static SmileFactory smileFactory() {
+        SmileFactory factory = new SmileFactory();
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_NAMES);
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        return factory;
     }
 
-    private static ObjectMapper createObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
+    private static ObjectMapper createObjectMapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        // stable order for unchanged content
+        mapper.enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
         mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker()
                 .withFieldVisibility(JsonAutoDetect.Visibility.ANY)
                 .withGetterVisibility(JsonAutoDetect.Visibility.NONE)
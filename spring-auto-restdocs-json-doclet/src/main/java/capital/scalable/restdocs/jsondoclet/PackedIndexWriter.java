@@ -0,0 +1,82 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Json Doclet
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.jsondoclet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes the documentation of all classes into a single packed index file.
+ * <p>
+ * Layout: magic, format version and class count, followed by one entry per class
+ * (UTF-8 length and bytes of the canonical class name, offset and length of its JSON)
+ * and the concatenated JSON documents. Offsets are relative to the end of the header.
+ * All numbers are big-endian ints.
+ */
+class PackedIndexWriter {
+    static final String FILE_NAME = "javadoc-json.pack";
+    static final int MAGIC = 0x53415244;
+    static final int VERSION = 1;
+
+    private final ObjectMapper mapper;
+    private final List<String> classNames = new ArrayList<>();
+    private final List<byte[]> documents = new ArrayList<>();
+
+    PackedIndexWriter(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    void add(String className, Object documentation) throws IOException {
+        classNames.add(className);
+        documents.add(mapper.writeValueAsBytes(documentation));
+    }
+
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(classNames.size());
+            int offset = 0;
+            for (int i = 0; i < classNames.size(); i++) {
+                byte[] name = classNames.get(i).getBytes(UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+                out.writeInt(offset);
+                out.writeInt(documents.get(i).length);
+                offset += documents.get(i).length;
+            }
+            for (byte[] document : documents) {
+                out.write(document);
+            }
+        }
+        DocletUtils.writeIfChanged(directory.resolve(FILE_NAME), bytes.toByteArray());
+    }
+}
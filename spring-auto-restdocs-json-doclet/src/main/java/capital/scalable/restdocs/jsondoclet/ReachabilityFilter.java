@@ -0,0 +1,187 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Json Doclet
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.jsondoclet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.AnnotationValue;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.ParameterizedType;
+import com.sun.javadoc.Parameter;
+import com.sun.javadoc.Type;
+import com.sun.javadoc.TypeVariable;
+import com.sun.javadoc.WildcardType;
+
+/**
+ * Restricts the documented classes to the ones reachable from controllers.
+ * <p>
+ * Starts from classes annotated with {@code @RestController} or {@code @Controller}
+ * and the configured root classes. From there, super classes, interfaces, field types,
+ * method parameter and return types (including type arguments) and {@code @JsonSubTypes}
+ * are followed. Only classes of the documented source set are visited.
+ */
+class ReachabilityFilter {
+    private static final Set<String> CONTROLLER_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "org.springframework.web.bind.annotation.RestController",
+            "org.springframework.stereotype.Controller"));
+    private static final String JSON_SUB_TYPES =
+            "com.fasterxml.jackson.annotation.JsonSubTypes";
+
+    private final Map<String, ClassDoc> documented = new HashMap<>();
+    private final Set<String> reachable = new HashSet<>();
+    private final Deque<ClassDoc> queue = new ArrayDeque<>();
+
+    private ReachabilityFilter(ClassDoc[] classDocs) {
+        for (ClassDoc classDoc : classDocs) {
+            documented.put(classDoc.qualifiedName(), classDoc);
+        }
+    }
+
+    static ClassDoc[] filter(ClassDoc[] classDocs, Collection<String> roots) {
+        ReachabilityFilter filter = new ReachabilityFilter(classDocs);
+        for (ClassDoc classDoc : classDocs) {
+            if (isController(classDoc) || roots.contains(classDoc.qualifiedName())) {
+                filter.addClass(classDoc);
+            }
+        }
+        filter.walk();
+
+        List<ClassDoc> result = new ArrayList<>();
+        for (ClassDoc classDoc : classDocs) {
+            if (filter.reachable.contains(classDoc.qualifiedName())) {
+                result.add(classDoc);
+            }
+        }
+        return result.toArray(new ClassDoc[result.size()]);
+    }
+
+    private static boolean isController(ClassDoc classDoc) {
+        for (AnnotationDesc annotation : classDoc.annotations()) {
+            if (CONTROLLER_ANNOTATIONS.contains(annotation.annotationType().qualifiedName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void walk() {
+        while (!queue.isEmpty()) {
+            ClassDoc classDoc = queue.poll();
+            addType(classDoc.superclassType());
+            for (Type type : classDoc.interfaceTypes()) {
+                addType(type);
+            }
+            for (FieldDoc fieldDoc : classDoc.fields(false)) {
+                addType(fieldDoc.type());
+            }
+            for (MethodDoc methodDoc : classDoc.methods(false)) {
+                addType(methodDoc.returnType());
+                for (Parameter parameter : methodDoc.parameters()) {
+                    addType(parameter.type());
+                }
+            }
+            for (AnnotationDesc annotation : classDoc.annotations()) {
+                if (JSON_SUB_TYPES.equals(annotation.annotationType().qualifiedName())) {
+                    addSubTypes(annotation);
+                }
+            }
+        }
+    }
+
+    private void addSubTypes(AnnotationDesc jsonSubTypes) {
+        for (AnnotationDesc.ElementValuePair pair : jsonSubTypes.elementValues()) {
+            for (Object subType : values(pair.value())) {
+                if (subType instanceof AnnotationDesc) {
+                    for (AnnotationDesc.ElementValuePair typePair
+                            : ((AnnotationDesc) subType).elementValues()) {
+                        if ("value".equals(typePair.element().name())
+                                && typePair.value().value() instanceof Type) {
+                            addType((Type) typePair.value().value());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Object> values(AnnotationValue value) {
+        List<Object> values = new ArrayList<>();
+        if (value.value() instanceof AnnotationValue[]) {
+            for (AnnotationValue element : (AnnotationValue[]) value.value()) {
+                values.add(element.value());
+            }
+        } else {
+            values.add(value.value());
+        }
+        return values;
+    }
+
+    private void addType(Type type) {
+        if (type == null || type.isPrimitive()) {
+            return;
+        }
+        ParameterizedType parameterizedType = type.asParameterizedType();
+        if (parameterizedType != null) {
+            for (Type argument : parameterizedType.typeArguments()) {
+                addType(argument);
+            }
+        }
+        WildcardType wildcardType = type.asWildcardType();
+        if (wildcardType != null) {
+            for (Type bound : wildcardType.extendsBounds()) {
+                addType(bound);
+            }
+            for (Type bound : wildcardType.superBounds()) {
+                addType(bound);
+            }
+            return;
+        }
+        TypeVariable typeVariable = type.asTypeVariable();
+        if (typeVariable != null) {
+            for (Type bound : typeVariable.bounds()) {
+                addType(bound);
+            }
+            return;
+        }
+        addClass(type.asClassDoc());
+    }
+
+    private void addClass(ClassDoc classDoc) {
+        if (classDoc == null) {
+            return;
+        }
+        ClassDoc documentedClass = documented.get(classDoc.qualifiedName());
+        if (documentedClass != null && reachable.add(documentedClass.qualifiedName())) {
+            queue.add(documentedClass);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Json Doclet
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.jsondoclet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DocletUtilsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writeIfChanged() throws IOException {
+        Path path = temporaryFolder.getRoot().toPath().resolve("Class.json");
+        FileTime modified = FileTime.fromMillis(1000);
+
+        assertThat(DocletUtils.writeIfChanged(path, "{}".getBytes(UTF_8)), is(true));
+        Files.setLastModifiedTime(path, modified);
+
+        assertThat(DocletUtils.writeIfChanged(path, "{}".getBytes(UTF_8)), is(false));
+        assertThat(Files.getLastModifiedTime(path), is(modified));
+
+        assertThat(DocletUtils.writeIfChanged(path, "{\"comment\":\"\"}".getBytes(UTF_8)),
+                is(true));
+        assertThat(new String(Files.readAllBytes(path), UTF_8), is("{\"comment\":\"\"}"));
+    }
+}
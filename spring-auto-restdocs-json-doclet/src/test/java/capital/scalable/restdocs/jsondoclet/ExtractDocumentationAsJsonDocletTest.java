@@ -20,14 +20,25 @@
 package capital.scalable.restdocs.jsondoclet;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
 
+import com.sun.tools.javadoc.Main;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.json.JSONException;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 public class ExtractDocumentationAsJsonDocletTest {
@@ -35,6 +46,12 @@ public class ExtractDocumentationAsJsonDocletTest {
     private static final String JSON_PATH =
             "capital/scalable/restdocs/jsondoclet/DocumentedClass.json";
 
+    private static final String SOURCE_DIR = ExtractDocumentationAsJsonDocletTest.class
+            .getClassLoader().getResource("reachability").getPath();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /**
      * The test requires that the Doclet is executed before. This is ensured by
      * the Maven configuration, but not when the test is executed on its own.
@@ -47,4 +64,106 @@ public class ExtractDocumentationAsJsonDocletTest {
                 this.getClass().getClassLoader().getResourceAsStream(JSON_PATH), UTF_8);
         JSONAssert.assertEquals(expected, generated, false);
     }
+
+    @Test
+    public void switchingFormatDeletesOtherFormat() {
+        File item = new File(temporaryFolder.getRoot(), "reach/Item");
+
+        runDoclet();
+        assertThat(new File(item + ".json").isFile(), is(true));
+
+        runDoclet("-smile");
+        assertThat(new File(item + ".smile").isFile(), is(true));
+        assertThat(new File(item + ".json").exists(), is(false));
+
+        runDoclet();
+        assertThat(new File(item + ".json").isFile(), is(true));
+        assertThat(new File(item + ".smile").exists(), is(false));
+    }
+
+    @Test
+    public void switchingFromPackedDeletesPackedIndex() {
+        File pack = new File(temporaryFolder.getRoot(), PackedIndexWriter.FILE_NAME);
+
+        runDoclet("-packed");
+        assertThat(pack.isFile(), is(true));
+
+        runDoclet();
+        assertThat(pack.exists(), is(false));
+        assertThat(new File(temporaryFolder.getRoot(), "reach/Item.json").isFile(), is(true));
+    }
+
+    @Test
+    public void optionLength() {
+        assertThat(ExtractDocumentationAsJsonDoclet.optionLength("-packed"), is(1));
+        assertThat(ExtractDocumentationAsJsonDoclet.optionLength("-smile"), is(1));
+        assertThat(ExtractDocumentationAsJsonDoclet.optionLength("-skipuptodate"), is(1));
+        assertThat(ExtractDocumentationAsJsonDoclet.optionLength("-reachable"), is(1));
+        assertThat(ExtractDocumentationAsJsonDoclet.optionLength("-threads"), is(2));
+        assertThat(ExtractDocumentationAsJsonDoclet.optionLength("-roots"), is(2));
+        assertThat(ExtractDocumentationAsJsonDoclet.optionLength("-d"), is(2));
+    }
+
+    @Test
+    public void skipsClassesWhoseSourceChangedWithoutDocumentationChange() throws IOException {
+        File sources = temporaryFolder.newFolder("sources");
+        FileUtils.copyDirectory(new File(SOURCE_DIR), sources);
+        File output = temporaryFolder.newFolder("output");
+        File itemSource = new File(sources, "reach/Item.java");
+        File itemJson = new File(output, "reach/Item.json");
+
+        assertThat(runDoclet(sources, output, "-skipuptodate", "-threads", "2"),
+                containsString("Javadoc JSON: 10 written, 0 unchanged, 0 up to date"));
+
+        // source touched after the output was written, e.g. by a code change without Javadoc
+        itemSource.setLastModified(System.currentTimeMillis() - 60000);
+        itemJson.setLastModified(System.currentTimeMillis() - 120000);
+        assertThat(runDoclet(sources, output, "-skipuptodate"),
+                containsString("Javadoc JSON: 0 written, 1 unchanged, 9 up to date"));
+        assertThat(itemJson.lastModified() >= itemSource.lastModified(), is(true));
+
+        assertThat(runDoclet(sources, output, "-skipuptodate"),
+                containsString("Javadoc JSON: 0 written, 0 unchanged, 10 up to date"));
+    }
+
+    @Test
+    public void rejectsInvalidThreads() {
+        StringWriter errors = new StringWriter();
+
+        int result = execute(new File(SOURCE_DIR), temporaryFolder.getRoot(),
+                new PrintWriter(errors), new PrintWriter(new StringWriter()), "-threads", "abc");
+
+        assertThat(result, is(not(0)));
+        assertThat(errors.toString(),
+                containsString("-threads requires a positive number of threads, got: abc"));
+    }
+
+    private String runDoclet(String... options) {
+        return runDoclet(new File(SOURCE_DIR), temporaryFolder.getRoot(), options);
+    }
+
+    private String runDoclet(File sourceDir, File destination, String... options) {
+        StringWriter notices = new StringWriter();
+        PrintWriter out = new PrintWriter(notices);
+        int result = execute(sourceDir, destination, out, out, options);
+        out.flush();
+        assertThat(notices.toString(), result, is(0));
+        return notices.toString();
+    }
+
+    private int execute(File sourceDir, File destination, PrintWriter errors, PrintWriter notices,
+            String... options) {
+        String[] args = new String[]{"-d", destination.getPath(),
+                "-sourcepath", sourceDir.getPath(),
+                "-classpath", System.getProperty("java.class.path"),
+                "reach", "org.springframework.web.bind.annotation"};
+        String[] allArgs = Arrays.copyOf(options, options.length + args.length);
+        System.arraycopy(args, 0, allArgs, options.length, args.length);
+
+        int result = Main.execute("javadoc", errors, notices, notices,
+                ExtractDocumentationAsJsonDoclet.class.getName(),
+                ExtractDocumentationAsJsonDoclet.class.getClassLoader(), allArgs);
+        errors.flush();
+        return result;
+    }
 }
@@ -0,0 +1,76 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Json Doclet
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.jsondoclet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PackedIndexWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writesHeaderAndDocuments() throws IOException {
+        PackedIndexWriter writer = new PackedIndexWriter(new ObjectMapper());
+        writer.add("pkg.First", Collections.singletonMap("comment", "first"));
+        writer.add("pkg.Outer.Second", Collections.singletonMap("comment", "second"));
+        writer.write(temporaryFolder.getRoot().toPath());
+
+        File file = new File(temporaryFolder.getRoot(), PackedIndexWriter.FILE_NAME);
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            assertThat(in.readInt(), is(PackedIndexWriter.MAGIC));
+            assertThat(in.readInt(), is(PackedIndexWriter.VERSION));
+            assertThat(in.readInt(), is(2));
+            assertThat(readName(in), is("pkg.First"));
+            assertThat(in.readInt(), is(0));
+            int firstLength = in.readInt();
+            assertThat(readName(in), is("pkg.Outer.Second"));
+            assertThat(in.readInt(), is(firstLength));
+            int secondLength = in.readInt();
+
+            assertThat(readDocument(in, firstLength), is("{\"comment\":\"first\"}"));
+            assertThat(readDocument(in, secondLength), is("{\"comment\":\"second\"}"));
+            assertThat(in.read(), is(-1));
+        }
+    }
+
+    private String readName(DataInputStream in) throws IOException {
+        return readDocument(in, in.readInt());
+    }
+
+    private String readDocument(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
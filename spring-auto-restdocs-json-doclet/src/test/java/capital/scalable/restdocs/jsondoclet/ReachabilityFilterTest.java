@@ -0,0 +1,88 @@
+/*-
+ * #%L
+ * Spring Auto REST Docs Json Doclet
+ * %%
+ * Copyright (C) 2015 - 2018 Scalable Capital GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package capital.scalable.restdocs.jsondoclet;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.sun.tools.javadoc.Main;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReachabilityFilterTest {
+
+    private static final String SOURCE_DIR = ReachabilityFilterTest.class.getClassLoader()
+            .getResource("reachability").getPath();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writesClassesReachableFromControllers() {
+        assertThat(runDoclet("-reachable"), is(documented("BaseEntity", "Dog", "Animal", "Item",
+                "ItemController", "ItemQuery", "Tag")));
+    }
+
+    @Test
+    public void writesClassesReachableFromRoots() {
+        assertThat(runDoclet("-roots", "reach.Extra, reach.ItemService"), is(documented(
+                "BaseEntity", "Dog", "Animal", "Extra", "Item", "ItemController", "ItemQuery",
+                "ItemService", "Tag")));
+    }
+
+    private Set<String> runDoclet(String... options) {
+        File destination = temporaryFolder.getRoot();
+        String[] args = new String[]{"-d", destination.getPath(),
+                "-sourcepath", SOURCE_DIR,
+                "-classpath", System.getProperty("java.class.path"),
+                "reach", "org.springframework.web.bind.annotation"};
+        String[] allArgs = Arrays.copyOf(options, options.length + args.length);
+        System.arraycopy(args, 0, allArgs, options.length, args.length);
+
+        PrintWriter out = new PrintWriter(new StringWriter());
+        int result = Main.execute("javadoc", out, out, out,
+                ExtractDocumentationAsJsonDoclet.class.getName(),
+                ExtractDocumentationAsJsonDoclet.class.getClassLoader(), allArgs);
+        assertThat(result, is(0));
+
+        Set<String> files = new TreeSet<>();
+        String[] reachFiles = new File(destination, "reach").list();
+        if (reachFiles != null) {
+            files.addAll(Arrays.asList(reachFiles));
+        }
+        return files;
+    }
+
+    private Set<String> documented(String... classNames) {
+        Set<String> files = new TreeSet<>();
+        for (String className : classNames) {
+            files.add(className + ".json");
+        }
+        return files;
+    }
+}
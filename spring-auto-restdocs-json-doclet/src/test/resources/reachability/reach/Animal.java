@@ -0,0 +1,7 @@
+package reach;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+
+@JsonSubTypes({@JsonSubTypes.Type(Dog.class)})
+public class Animal {
+}
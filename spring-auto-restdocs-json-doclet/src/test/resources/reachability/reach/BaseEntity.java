@@ -0,0 +1,6 @@
+package reach;
+
+public class BaseEntity {
+
+    private long id;
+}
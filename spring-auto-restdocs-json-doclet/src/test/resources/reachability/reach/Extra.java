@@ -0,0 +1,4 @@
+package reach;
+
+public class Extra {
+}
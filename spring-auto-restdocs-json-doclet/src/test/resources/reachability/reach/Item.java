@@ -0,0 +1,6 @@
+package reach;
+
+public class Item extends BaseEntity {
+
+    private Animal owner;
+}
@@ -0,0 +1,13 @@
+package reach;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ItemController {
+
+    public List<Item> getItems(ItemQuery query) {
+        return null;
+    }
+}
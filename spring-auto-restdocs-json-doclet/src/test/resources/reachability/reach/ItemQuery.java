@@ -0,0 +1,8 @@
+package reach;
+
+import java.util.Map;
+
+public class ItemQuery {
+
+    private Map<String, ? extends Tag> tags;
+}
@@ -0,0 +1,8 @@
+package reach;
+
+public class ItemService {
+
+    public Item load(long id) {
+        return null;
+    }
+}
@@ -0,0 +1,6 @@
+package reach;
+
+public class Tag {
+
+    private String name;
+}